@@ -0,0 +1,163 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+import osp.Hardware.*;
+import osp.Utilities.*;
+
+/**
+*   Adaptive scheduling: a seek-greedy policy (e.g. SSTF, best mean
+*   response time) is used while the waits stay short, a fairness-bounded
+*   policy (e.g. F-SCAN, best maximum response time) once they do not.
+*
+*   The policy watches the queue depth, averaged over the last dequeues,
+*   and the tail wait: the longest wait among the last window dequeues
+*   and the age of the oldest pending request. It goes fair when the tail
+*   wait exceeds waitLimit. It goes back to greedy once the tail wait is
+*   below half of it, or once the queue is less than minDepth deep, where
+*   the greedy order cannot pass over a request for long, unless a
+*   request still waits longer than waitLimit. A switch is considered at
+*   most once per window dequeues.
+*
+*   Going back to greedy also waits for minDwell dequeues in the fair
+*   policy. A greedy order that starves a request again right after it
+*   took over would otherwise make the policy switch back and forth
+*   every window, moving the whole queue each time.
+*/
+public class AdaptivePolicy implements DiskSchedulingPolicy{
+    private DiskSchedulingPolicy greedy;
+    private DiskSchedulingPolicy fair;
+    private DiskSchedulingPolicy active;
+    private int waitLimit;
+    private int minDepth;
+    private int window;
+    private int minDwell;
+
+    /**
+    *   Pending requests in arrival order, the same ones as in the
+    *   active policy
+    */
+    private LinkedHashSet<IORB> pending = new LinkedHashSet<IORB>();
+    /**
+    *   Waits of the last window dequeues
+    */
+    private long[] waits;
+    private int nextWait = 0;
+    private double depth = 0;
+    private int sinceSwitch = 0;
+    private int switches = 0;
+
+    public AdaptivePolicy(DiskSchedulingPolicy greedy, DiskSchedulingPolicy fair,
+        int waitLimit, int minDepth, int window, int minDwell){
+        this.greedy = greedy;
+        this.fair = fair;
+        this.active = greedy;
+        this.waitLimit = waitLimit;
+        this.minDepth = minDepth;
+        this.window = Math.max(window, 1);
+        this.waits = new long[this.window];
+        this.minDwell = minDwell;
+    }
+
+    public void enqueue(IORB iorb){
+        pending.add(iorb);
+        active.enqueue(iorb);
+    }
+
+    public IORB dequeue(Disk disk){
+        long now = HClock.get();
+        depth += (pending.size() - depth) / window;
+        if (++sinceSwitch >= window) {
+            adapt(disk, now);
+        }
+        IORB iorb = active.dequeue(disk);
+        if (iorb != null) {
+            pending.remove(iorb);
+            waits[nextWait] = iorb.enqueueTime == null ? 0 : now - iorb.enqueueTime;
+            nextWait = (nextWait + 1) % window;
+        }
+        return iorb;
+    }
+
+    public List<IORB> cancel(ThreadCB thread){
+        List<IORB> removed = active.cancel(thread);
+        for (IORB iorb : removed) {
+            pending.remove(iorb);
+        }
+        return removed;
+    }
+
+    public DiskSchedulingPolicy getActive(){
+        return active;
+    }
+
+    public int getSwitches(){
+        return switches;
+    }
+
+    public int size(){
+        return active.size();
+    }
+    public boolean isEmpty(){
+        return active.isEmpty();
+    }
+    public boolean contains(Object obj){
+        return active.contains(obj);
+    }
+    public String getName(){
+        return "ADAPTIVE";
+    }
+
+    /**
+    *   Switch policy if the observed waits ask for it
+    */
+    private void adapt(Disk disk, long now){
+        long tail = 0;
+        for (long wait : waits) {
+            tail = Math.max(tail, wait);
+        }
+        if (!pending.isEmpty()) {
+            IORB oldest = pending.iterator().next();
+            if (oldest.enqueueTime != null) {
+                tail = Math.max(tail, now - oldest.enqueueTime);
+            }
+        }
+        if (active == greedy && tail > waitLimit) {
+            migrate(disk, fair, "tail wait " + tail + " > " + waitLimit);
+        } else if (active == greedy || sinceSwitch < minDwell) {
+            return;
+        } else if (tail < waitLimit / 2) {
+            migrate(disk, greedy, "tail wait " + tail + " < " + waitLimit / 2);
+        } else if (depth < minDepth && tail <= waitLimit) {
+            migrate(disk, greedy, "queue depth " + String.format("%.1f", depth) +
+                " < " + minDepth);
+        }
+    }
+
+    /**
+    *   Move every pending request to the other policy in arrival order
+    */
+    private void migrate(Disk disk, DiskSchedulingPolicy to, String reason){
+        int count = active.size();
+        HashSet<ThreadCB> threads = new HashSet<ThreadCB>();
+        for (IORB iorb : pending) {
+            threads.add(iorb.getThread());
+        }
+        for (ThreadCB thread : threads) {
+            active.cancel(thread);
+        }
+        for (IORB iorb : pending) {
+            to.enqueue(iorb);
+        }
+        if (!active.isEmpty() || to.size() != count) {
+            MyOut.error(disk, "Adaptive: lost requests moving from " +
+                active.getName() + " to " + to.getName());
+        }
+        switches++;
+        MyOut.print(disk, "Adaptive: switch from " + active.getName() + " to " +
+            to.getName() + " at " + HClock.get() + ", " + reason +
+            ", " + count + " requests moved");
+        active = to;
+        sinceSwitch = 0;
+    }
+}
@@ -0,0 +1,19 @@
+package osp.Devices;
+
+import osp.IFLModules.*;
+import osp.Threads.*;
+import osp.Utilities.*;
+
+/**
+*	This class runs in background and restarts the devices whose
+*	anticipation window ran out without a matching request
+*/
+class AnticipationDaemon implements DaemonInterface{
+	/**
+	*	This method will be repeatedly called, a few times per
+	*	anticipation window
+	*/
+	public void unleash(ThreadCB thread){
+		Device.checkAnticipations();
+	}
+}
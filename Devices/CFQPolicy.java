@@ -0,0 +1,163 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+import osp.Tasks.TaskCB;
+import osp.Hardware.*;
+
+/**
+*   CFQ (completely fair queuing): every task gets its own sub-queue and
+*   the sub-queues are served round-robin, each for a slice of at most
+*   quantum requests and at most sliceTime ticks. Inside a slice the
+*   closest request of the task is served (SSTF). Once the task's oldest
+*   request has waited longer than maxWaitTime, its requests are served
+*   in one-way cylinder order until that one is served.
+*   One task flooding the device with swap traffic only delays the
+*   others by one slice, and a far request of a task cannot be passed
+*   over for ever by the task's own nearer ones.
+*/
+public class CFQPolicy implements DiskSchedulingPolicy{
+    /**
+    *   task -> its pending requests
+    */
+    private HashMap<TaskCB, CylinderQueue> subQueues = new HashMap<TaskCB, CylinderQueue>();
+    /**
+    *   Tasks with pending requests waiting for a slice, in turn order
+    */
+    private ArrayDeque<TaskCB> ring = new ArrayDeque<TaskCB>();
+    /**
+    *   task -> cylinder of its last served request
+    */
+    private HashMap<TaskCB, Integer> positions = new HashMap<TaskCB, Integer>();
+    /**
+    *   Task owning the current slice and requests left in it
+    */
+    private TaskCB current = null;
+    private int budget = 0;
+    private long sliceStart = 0;
+    private int quantum;
+    /**
+    *   Ticks a slice may last, 0 for no limit
+    */
+    private int sliceTime;
+    /**
+    *   Ticks a request may wait before its task sweeps towards it,
+    *   0 disables aging
+    */
+    private int maxWaitTime;
+    private int size = 0;
+
+    public CFQPolicy(int quantum){
+        this(quantum, 0, 0);
+    }
+
+    public CFQPolicy(int quantum, int sliceTime, int maxWaitTime){
+        this.quantum = Math.max(1, quantum);
+        this.sliceTime = sliceTime;
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    public void enqueue(IORB iorb){
+        TaskCB task = iorb.getThread().getTask();
+        CylinderQueue queue = subQueues.get(task);
+        if (queue == null) {
+            queue = new CylinderQueue();
+            subQueues.put(task, queue);
+            positions.put(task, iorb.getCylinder());
+            if (task != current) {
+                ring.addLast(task);
+            }
+        }
+        if (maxWaitTime > 0) {
+            iorb.deadline = iorb.enqueueTime + maxWaitTime;
+        }
+        queue.add(iorb);
+        size++;
+    }
+
+    /**
+    *   Remove the closest request of the task owning the slice, or the
+    *   next one upwards while its oldest one is past its deadline. The
+    *   slice goes to the next task when its requests or its time are
+    *   used up, or the task has nothing left.
+    */
+    public IORB dequeue(Disk disk){
+        if (size == 0) {
+            return null;
+        }
+        long now = HClock.get();
+        //A slice serves at least one request, even if its seek alone
+        //is longer than the slice time
+        if (current == null || budget <= 0 || !subQueues.containsKey(current) ||
+            (sliceTime > 0 && budget < quantum && now - sliceStart >= sliceTime)) {
+            //The task keeps its place if it still has requests
+            if (current != null && subQueues.containsKey(current)) {
+                ring.addLast(current);
+            }
+            current = ring.pollFirst();
+            budget = quantum;
+            sliceStart = now;
+        }
+        CylinderQueue queue = subQueues.get(current);
+        int head = disk.getHeadPosition();
+        IORB iorb = null;
+        if (queue.expired(now) != null) {
+            //Sweep upwards from where the task's last request was, not
+            //from the head that other tasks moved, until the oldest is
+            //served: it is reached within one pass over the task's
+            //requests, and the others are not served in FIFO order
+            iorb = queue.ceiling(positions.get(current));
+            if (iorb == null) {
+                iorb = queue.lowest();
+            }
+        } else{
+            iorb = queue.nearest(head);
+        }
+        positions.put(current, iorb.getCylinder());
+        remove(current, queue, iorb);
+        budget--;
+        return iorb;
+    }
+
+    public List<IORB> cancel(ThreadCB thread){
+        TaskCB task = thread.getTask();
+        CylinderQueue queue = subQueues.get(task);
+        if (queue == null) {
+            return Collections.emptyList();
+        }
+        List<IORB> removed = queue.removeThread(thread);
+        size -= removed.size();
+        if (queue.isEmpty()) {
+            subQueues.remove(task);
+            positions.remove(task);
+            ring.remove(task);
+        }
+        return removed;
+    }
+
+    public int size(){
+        return size;
+    }
+    public boolean isEmpty(){
+        return size == 0;
+    }
+    public boolean contains(Object obj){
+        if (!(obj instanceof IORB)) {
+            return false;
+        }
+        CylinderQueue queue = subQueues.get(((IORB)obj).getThread().getTask());
+        return queue != null && queue.contains(obj);
+    }
+    public String getName(){
+        return "CFQ";
+    }
+
+    private void remove(TaskCB task, CylinderQueue queue, IORB iorb){
+        queue.remove(iorb);
+        size--;
+        if (queue.isEmpty()) {
+            subQueues.remove(task);
+            positions.remove(task);
+        }
+    }
+}
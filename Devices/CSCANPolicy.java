@@ -0,0 +1,76 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+import osp.Hardware.*;
+import osp.Utilities.*;
+
+/**
+*   C-SCAN: the head only serves requests while moving towards higher
+*   cylinders, when nothing is left above it goes back to the lowest
+*   pending cylinder and starts a new sweep. OSP moves the head straight
+*   to the next request, so going back to the lowest pending cylinder
+*   rather than cylinder 0 makes this C-LOOK, and CLOOK in params.osp
+*   is this policy without aging.
+*/
+public class CSCANPolicy implements DiskSchedulingPolicy{
+    private CylinderQueue queue = new CylinderQueue();
+    /**
+    *   Maximum ticks a request may wait before it is served first,
+    *   0 disables aging
+    */
+    private int maxWaitTime;
+
+    public CSCANPolicy(){
+        this(0);
+    }
+
+    public CSCANPolicy(int maxWaitTime){
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    public void enqueue(IORB iorb){
+        if (maxWaitTime > 0) {
+            iorb.deadline = iorb.enqueueTime + maxWaitTime;
+        }
+        queue.add(iorb);
+    }
+
+    /**
+    *   Remove the request on the head's cylinder or the next one above
+    *   it, or the lowest one if the head reached the edge. The oldest request goes
+    *   first once it has passed its deadline.
+    */
+    public IORB dequeue(Disk disk){
+        IORB iorb = queue.expired(HClock.get());
+        if (iorb != null) {
+            MyOut.print(disk, "Serve expired " + iorb);
+        } else{
+            iorb = queue.ceiling(disk.getHeadPosition());
+        }
+        if (iorb == null) {
+            iorb = queue.lowest();
+        }
+        if (iorb != null) {
+            queue.remove(iorb);
+        }
+        return iorb;
+    }
+
+    public List<IORB> cancel(ThreadCB thread){
+        return queue.removeThread(thread);
+    }
+
+    public int size(){
+        return queue.size();
+    }
+    public boolean isEmpty(){
+        return queue.isEmpty();
+    }
+    public boolean contains(Object obj){
+        return queue.contains(obj);
+    }
+    public String getName(){
+        return "CSCAN";
+    }
+}
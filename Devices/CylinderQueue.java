@@ -0,0 +1,205 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+
+/**
+*   Pending IORBs of one device, indexed by cylinder.
+*
+*   IORBs on the same cylinder share a bucket that keeps them in arrival
+*   order, and the buckets sit in a TreeMap keyed by cylinder, so the
+*   closest request in either direction is found in O(log n) instead of
+*   walking a sorted Vector. Two extra indexes, one by arrival and one
+*   by requesting thread, make FIFO selection, removal of a given IORB
+*   and cancelling all requests of a thread cheap as well.
+*
+*   The class does no locking and sets no timestamps, the IORBQueue
+*   that owns it does that.
+*/
+public class CylinderQueue{
+    /**
+    *   cylinder -> IORBs on that cylinder in arrival order
+    */
+    private TreeMap<Integer, LinkedHashSet<IORB>> buckets;
+    /**
+    *   All IORBs in arrival order
+    */
+    private LinkedHashSet<IORB> arrivals;
+    /**
+    *   Requesting thread -> its IORBs in this queue
+    */
+    private HashMap<ThreadCB, LinkedHashSet<IORB>> threads;
+
+    public CylinderQueue(){
+        buckets = new TreeMap<Integer, LinkedHashSet<IORB>>();
+        arrivals = new LinkedHashSet<IORB>();
+        threads = new HashMap<ThreadCB, LinkedHashSet<IORB>>();
+    }
+
+    /**
+    *   Insert an IORB, its cylinder must already be set.
+    */
+    public void add(IORB iorb){
+        if (!arrivals.add(iorb)) {
+            return;
+        }
+        LinkedHashSet<IORB> bucket = buckets.get(iorb.getCylinder());
+        if (bucket == null) {
+            bucket = new LinkedHashSet<IORB>();
+            buckets.put(iorb.getCylinder(), bucket);
+        }
+        bucket.add(iorb);
+        LinkedHashSet<IORB> owned = threads.get(iorb.getThread());
+        if (owned == null) {
+            owned = new LinkedHashSet<IORB>();
+            threads.put(iorb.getThread(), owned);
+        }
+        owned.add(iorb);
+    }
+
+    /**
+    *   Remove the given IORB from all indexes.
+    *   @return false if the IORB was not in the queue
+    */
+    public boolean remove(IORB iorb){
+        if (!arrivals.remove(iorb)) {
+            return false;
+        }
+        LinkedHashSet<IORB> bucket = buckets.get(iorb.getCylinder());
+        bucket.remove(iorb);
+        if (bucket.isEmpty()) {
+            buckets.remove(iorb.getCylinder());
+        }
+        LinkedHashSet<IORB> owned = threads.get(iorb.getThread());
+        owned.remove(iorb);
+        if (owned.isEmpty()) {
+            threads.remove(iorb.getThread());
+        }
+        return true;
+    }
+
+    /**
+    *   Remove every IORB requested by the thread.
+    *   @return the removed IORBs, in arrival order
+    */
+    public List<IORB> removeThread(ThreadCB thread){
+        LinkedHashSet<IORB> owned = threads.get(thread);
+        if (owned == null) {
+            return Collections.emptyList();
+        }
+        List<IORB> removed = new ArrayList<IORB>(owned);
+        for (IORB iorb : removed) {
+            remove(iorb);
+        }
+        return removed;
+    }
+
+    /**
+    *   The IORB that has waited longest
+    */
+    public IORB oldest(){
+        return arrivals.isEmpty() ? null : arrivals.iterator().next();
+    }
+
+    /**
+    *   The oldest IORB if its deadline has passed. Policies give every
+    *   IORB of a queue the same maximum wait, so no younger IORB can
+    *   have expired before it.
+    */
+    public IORB expired(long now){
+        IORB iorb = oldest();
+        if (iorb == null || iorb.deadline == null || iorb.deadline >= now) {
+            return null;
+        }
+        return iorb;
+    }
+
+    /**
+    *   The oldest IORB on the lowest pending cylinder
+    */
+    public IORB lowest(){
+        return firstOf(buckets.firstEntry());
+    }
+
+    /**
+    *   The oldest IORB on the highest pending cylinder
+    */
+    public IORB highest(){
+        return firstOf(buckets.lastEntry());
+    }
+
+    /**
+    *   The oldest IORB on the lowest cylinder >= the given one
+    */
+    public IORB ceiling(int cylinder){
+        return firstOf(buckets.ceilingEntry(cylinder));
+    }
+
+    /**
+    *   The oldest IORB on the lowest cylinder > the given one
+    */
+    public IORB higher(int cylinder){
+        return firstOf(buckets.higherEntry(cylinder));
+    }
+
+    /**
+    *   The oldest IORB on the highest cylinder <= the given one
+    */
+    public IORB floor(int cylinder){
+        return firstOf(buckets.floorEntry(cylinder));
+    }
+
+    /**
+    *   The oldest IORB on the highest cylinder < the given one
+    */
+    public IORB lower(int cylinder){
+        return firstOf(buckets.lowerEntry(cylinder));
+    }
+
+    /**
+    *   The IORB closest to the given cylinder in either direction,
+    *   a tie goes to the lower cylinder.
+    */
+    public IORB nearest(int cylinder){
+        IORB up = ceiling(cylinder);
+        IORB down = floor(cylinder);
+        if (up == null) {
+            return down;
+        }
+        if (down == null) {
+            return up;
+        }
+        if (up.getCylinder() - cylinder < cylinder - down.getCylinder()) {
+            return up;
+        }
+        return down;
+    }
+
+    /**
+    *   All IORBs on a cylinder, in arrival order
+    */
+    public Collection<IORB> at(int cylinder){
+        LinkedHashSet<IORB> bucket = buckets.get(cylinder);
+        if (bucket == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(bucket);
+    }
+
+    public int size(){
+        return arrivals.size();
+    }
+    public boolean isEmpty(){
+        return arrivals.isEmpty();
+    }
+    public boolean contains(Object obj){
+        return arrivals.contains(obj);
+    }
+
+    private IORB firstOf(Map.Entry<Integer, LinkedHashSet<IORB>> entry){
+        if (entry == null) {
+            return null;
+        }
+        return entry.getValue().iterator().next();
+    }
+}
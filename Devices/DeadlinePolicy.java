@@ -0,0 +1,157 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+import osp.Hardware.*;
+import osp.Utilities.*;
+
+/**
+*   Deadline: requests are served in one-way cylinder order (C-LOOK),
+*   while reads and writes also wait in their own FIFO with an expiry
+*   time. Reads (swap-ins block the faulting thread) expire much sooner
+*   than writes (swap-outs usually nobody waits for).
+*
+*   The FIFO heads are checked before every dequeue, and expired
+*   requests move to an expired queue of their own. While a read has
+*   expired, or else a write, the sweep only heads for expired requests,
+*   in C-LOOK order among them so that a backlog does not turn into FIFO
+*   seeks. Requests on the cylinders in between are served on the way,
+*   one per cylinder, so the others are not held up either.
+*/
+public class DeadlinePolicy implements DiskSchedulingPolicy{
+    private CylinderQueue sorted = new CylinderQueue();
+    /**
+    *   Expiry queues in arrival order, of the requests not expired yet
+    */
+    private LinkedHashSet<IORB> reads = new LinkedHashSet<IORB>();
+    private LinkedHashSet<IORB> writes = new LinkedHashSet<IORB>();
+    /**
+    *   Requests past their deadline, by cylinder
+    */
+    private CylinderQueue expiredReads = new CylinderQueue();
+    private CylinderQueue expiredWrites = new CylinderQueue();
+
+    private int readExpireTime;
+    private int writeExpireTime;
+    /**
+    *   Number of expired reads served in a row while a write has
+    *   expired too, so writes cannot starve behind reads
+    */
+    private int fifoBatch;
+    private int readsInRow = 0;
+
+    public DeadlinePolicy(int readExpireTime, int writeExpireTime, int fifoBatch){
+        this.readExpireTime = readExpireTime;
+        this.writeExpireTime = writeExpireTime;
+        this.fifoBatch = Math.max(1, fifoBatch);
+    }
+
+    public void enqueue(IORB iorb){
+        if (iorb.getIOType() == GlobalVariables.FileRead) {
+            iorb.deadline = iorb.enqueueTime + readExpireTime;
+            reads.add(iorb);
+        } else{
+            iorb.deadline = iorb.enqueueTime + writeExpireTime;
+            writes.add(iorb);
+        }
+        sorted.add(iorb);
+    }
+
+    public IORB dequeue(Disk disk){
+        long now = HClock.get();
+        expire(reads, expiredReads, now);
+        expire(writes, expiredWrites, now);
+        CylinderQueue expired = null;
+        if (!expiredWrites.isEmpty() && (expiredReads.isEmpty() || readsInRow >= fifoBatch)) {
+            expired = expiredWrites;
+        } else if (!expiredReads.isEmpty()) {
+            expired = expiredReads;
+        }
+        int head = disk.getHeadPosition();
+        IORB iorb = null;
+        if (expired != null) {
+            IORB target = next(expired, head);
+            //The head never stays on a cylinder on the way, so at most
+            //one request per cylinder goes before the expired one
+            if (target.getCylinder() > head) {
+                iorb = sorted.higher(head);
+            }
+            if (iorb == null || iorb.getCylinder() >= target.getCylinder()) {
+                iorb = target;
+                MyOut.print(disk, "Serve expired " + iorb);
+                if (expired == expiredWrites) {
+                    readsInRow = 0;
+                } else if (!expiredWrites.isEmpty()) {
+                    readsInRow++;
+                }
+            }
+        } else{
+            iorb = next(sorted, head);
+        }
+        if (iorb != null) {
+            remove(iorb);
+        }
+        return iorb;
+    }
+
+    public List<IORB> cancel(ThreadCB thread){
+        List<IORB> removed = sorted.removeThread(thread);
+        for (IORB iorb : removed) {
+            reads.remove(iorb);
+            writes.remove(iorb);
+            expiredReads.remove(iorb);
+            expiredWrites.remove(iorb);
+        }
+        return removed;
+    }
+
+    public int size(){
+        return sorted.size();
+    }
+    public boolean isEmpty(){
+        return sorted.isEmpty();
+    }
+    public boolean contains(Object obj){
+        return sorted.contains(obj);
+    }
+    public String getName(){
+        return "DEADLINE";
+    }
+
+    private void remove(IORB iorb){
+        sorted.remove(iorb);
+        reads.remove(iorb);
+        writes.remove(iorb);
+        expiredReads.remove(iorb);
+        expiredWrites.remove(iorb);
+    }
+
+    /**
+    *   C-LOOK choice in a queue: from the head's cylinder upwards, then
+    *   from the lowest cylinder
+    */
+    private IORB next(CylinderQueue queue, int head){
+        IORB iorb = queue.ceiling(head);
+        if (iorb == null) {
+            iorb = queue.lowest();
+        }
+        return iorb;
+    }
+
+    /**
+    *   Move the expired requests at the head of a FIFO to its expired
+    *   queue. Deadlines grow with the arrival order, so the walk stops
+    *   at the first one that has not expired.
+    */
+    private void expire(LinkedHashSet<IORB> fifo, CylinderQueue expired, long now){
+        Iterator<IORB> it = fifo.iterator();
+        while (it.hasNext()) {
+            IORB iorb = it.next();
+            if (iorb.deadline >= now) {
+                return;
+            }
+            it.remove();
+            expired.add(iorb);
+        }
+    }
+}
@@ -0,0 +1,545 @@
+package osp.Devices;
+
+/**
+*    This class stores all pertinent information about a device in
+*    the device table.  This class should be sub-classed by all
+*    device classes, such as the Disk class.
+*
+*    @OSPProject Devices
+*/
+
+import osp.IFLModules.*;
+import osp.Threads.*;
+import osp.Utilities.*;
+import osp.Hardware.*;
+import osp.Memory.*;
+import osp.FileSys.*;
+import osp.Tasks.*;
+import java.util.*;
+
+public class Device extends IflDevice
+{
+    private Stats stat;
+
+    /**
+    *   Ticks spent on finished transfers and start of the current one
+    */
+    private long busyTicks = 0;
+    private long busyStart = 0;
+
+    /**
+    *   Anticipatory idling: after a synchronous read the device waits up
+    *   to anticipationWindow ticks for the same task to request a block
+    *   within anticipationDistance cylinders, before serving the queue.
+    */
+    private int anticipationWindow;
+    /**
+    *   Times per window the anticipation daemon looks for windows that
+    *   ran out
+    */
+    private static final int AnticipationChecks = 4;
+    private int anticipationDistance;
+    private boolean anticipating = false;
+    private TaskCB anticipatedTask;
+    private int anticipatedCylinder;
+    private long anticipationStart;
+    private long anticipationHits = 0;
+    private long anticipationMisses = 0;
+    private long anticipationIdleTicks = 0;
+
+    private DiskGeometry geometry;
+
+    /**
+    *        This constructor initializes a device with the provided parameters. 
+    *        As a first statement it must have the following:
+    *        super(id,numberOfBlocks);
+    *
+    *        @param numberOfBlocks -- number of blocks on device
+    *
+    *        @OSPProject Devices
+    */
+    public Device(int id, int numberOfBlocks)
+    {
+        super(id, numberOfBlocks);
+        //The scheduling policy is chosen per device in params.osp
+        iorbQueue = new IORBQueue(Policies.create(id));
+        anticipationWindow = DeviceParams.getInt("AnticipationWindow", 0);
+        anticipationDistance = DeviceParams.getDeviceInt(id, "AnticipationDistance", 2);
+        stat = new Stats(this);
+        // MyOut.print(this, "Create device.");
+    }
+
+    /**
+    *    This method is called once at the beginning of the
+    *    simulation. Can be used to initialize static variables.
+    *
+    *    @OSPProject Devices
+    */
+    public static void init()
+    {
+        //Report latencies at every snapshot of the simulation
+        int snapshots = DeviceParams.getInt("General", "NumberOfSnapshots", 0);
+        int length = DeviceParams.getInt("General", "SimulationLength", 0);
+        if (snapshots > 0 && length / snapshots > 0) {
+            Daemon.create("Device statistics daemon", 
+                new StatsDaemon(), length / snapshots);
+        }
+        //Sample busy state and queue length of the devices
+        int interval = DeviceParams.getInt("SampleInterval", 1000);
+        if (interval > 0) {
+            Daemon.create("Device sampling daemon", 
+                new DeviceSampler(), interval);
+        }
+        //Ends anticipation windows that no request came for, several
+        //times per window so that a window overruns by a quarter at most
+        int window = DeviceParams.getInt("AnticipationWindow", 0);
+        if (window > 0) {
+            Daemon.create("Device anticipation daemon", 
+                new AnticipationDaemon(), Math.max(1, window / AnticipationChecks));
+        }
+    }
+
+    /**
+    *   Enqueues the IORB to the IORB queue for this device
+    *   according to some kind of scheduling algorithm.
+    *          
+    *   This method must lock the page (which may trigger a page fault),
+    *   check the device's ate and call startIO() if the 
+    *   device is idle, otherwise append the IORB to the IORB queue.
+    *   
+    *   @return SUCCESS or FAILURE.
+    *   FAILURE is returned if the IORB wasn't enqueued 
+    *   (for instance, locking the page fails or thread is killed).
+    *   SUCCESS is returned if the IORB is fine and either the page was 
+    *   valid and device started on the IORB immediately or the IORB
+    *   was successfully enqueued (possibly after causing pagefault pagefault)
+    *          
+    *   @OSPProject Devices
+    */
+    public int do_enqueueIORB(IORB iorb)
+    {
+        MyOut.print(this, "Enqueue for " + iorb);
+        if (iorb == null) {
+            MyOut.print(iorb, "IORB is null");
+            return FAILURE;
+        }
+
+        //A striped swap IORB is served by its member disk, through
+        //the public call so that OSP does its bookkeeping there
+        if (iorb.getDeviceID() != getID()) {
+            MyOut.print(this, "Forward " + iorb + " to device " + iorb.getDeviceID());
+            return Device.get(iorb.getDeviceID()).enqueueIORB(iorb);
+        }
+
+        //Return FAILURE if the requesting thread is killed.
+        ThreadCB thread = iorb.getThread();
+        if (isThreadDead(thread)) {
+            return FAILURE;
+        }
+        //Lock the page associated with the iorb, to ensure that the
+        //page will not be swapped out till the end of the operation.
+        PageTableEntry page = iorb.getPage();
+        if (SUCCESS != page.lock(iorb)){
+            if (page.getFrame() != null) {
+                page.unlock();
+            }
+            return FAILURE;
+        }
+
+        //Increment IORB count of the open file handle, to prevent 
+        //closing before all I/O operation have finished.
+        OpenFile swapFile = iorb.getOpenFile();
+        synchronized (swapFile){
+            swapFile.incrementIORBCount();
+        }
+
+        //Set the cylinder of the IORB to the device(disk)
+        int cylinder = computeCylinder(iorb.getBlockNumber());
+        iorb.setCylinder(cylinder);
+        iorb.sector = computeSector(iorb.getBlockNumber());
+
+        //Return FAILURE if the requesting thread is killed.
+        // ThreadCB thread = iorb.getThread();
+        if (isThreadDead(thread)) {
+            synchronized (swapFile){
+                swapFile.decrementIORBCount();
+            }
+            page.unlock();
+            return FAILURE;
+        }
+
+        //The request the idle device was waiting for is served at once
+        if (anticipating && isAnticipated(iorb)) {
+            MyOut.print(this, "Anticipation hit " + iorb);
+            long now = HClock.get();
+            anticipationHits++;
+            anticipationIdleTicks += now - anticipationStart;
+            anticipating = false;
+            iorb.enqueueTime = now;
+            iorb.dequeueTime = now;
+            startIO(starting(iorb));
+            return SUCCESS;
+        }
+
+        ((IORBQueue)iorbQueue).enqueue(iorb);
+        PendingIndex.add(iorb);
+        if (anticipating) {
+            checkAnticipation();
+        } else if (!isBusy()) {
+            //Start I/O if the device is idle
+            startIO(do_dequeueIORB());
+        }
+        
+        return SUCCESS;
+    }
+
+    /**
+    *       Selects an IORB (according to some scheduling strategy)
+    *       and dequeues it from the IORB queue.
+    *
+    *       No unlock because device has not finished servicing that
+    *       IORB.
+    *
+    *       @OSPProject Devices
+    */
+    public IORB do_dequeueIORB()
+    {
+        MyOut.print(this, "Dequeue");
+        return starting(((IORBQueue)iorbQueue).dequeue());
+    }
+
+    /**
+    *   Bookkeeping for the IORB the device is about to start
+    */
+    private IORB starting(IORB iorb){
+        if (iorb != null) {
+            //The device starts on this IORB
+            PendingIndex.remove(iorb);
+            busyStart = HClock.get();
+            iorb.sourceCylinder = ((Disk)this).getHeadPosition();
+            // MyOut.print(this, "current head position: " + ((Disk)this).getHeadPosition() +
+            //     "target head position: " + iorb.getCylinder());
+            stat.inputHeadStat(
+                ((Disk)this).getHeadPosition(),
+                iorb.getCylinder(),
+                iorb.createTime,
+                HClock.get());
+        }
+        return iorb;
+    }
+
+    /**
+    *   Record a completed IORB in the statistics of this device, called
+    *   by the interrupt handler once the IORB is finished.
+    */
+    public void recordCompletion(IORB iorb){
+        stat.inputCompletion(iorb);
+    }
+
+    /**
+    *   Called by the interrupt handler when the transfer in progress is
+    *   finished.
+    */
+    public void transferFinished(){
+        busyTicks += HClock.get() - busyStart;
+    }
+
+    /**
+    *   Called by the interrupt handler after a transfer has finished and
+    *   the device was set idle. After a synchronous read by a live task
+    *   with other requests waiting, the device stays idle for a short
+    *   window in case that task asks for a nearby block next.
+    *   @return true if the device waits, false if it should go on with
+    *   the queue
+    */
+    public boolean anticipate(IORB finished){
+        if (anticipationWindow <= 0 || finished.getIOType() != FileRead ||
+            ((IORBQueue)iorbQueue).isEmpty()) {
+            return false;
+        }
+        ThreadCB thread = finished.getThread();
+        if (isThreadDead(thread)) {
+            return false;
+        }
+        anticipating = true;
+        anticipatedTask = thread.getTask();
+        anticipatedCylinder = finished.getCylinder();
+        anticipationStart = HClock.get();
+        MyOut.print(this, "Anticipate a request of " + anticipatedTask + 
+            " near cylinder " + anticipatedCylinder);
+        return true;
+    }
+
+    /**
+    *   End the anticipation windows of all devices that are over. Called
+    *   by the anticipation daemon and on every disk interrupt.
+    */
+    public static void checkAnticipations(){
+        for (int i = 0; i < getTableSize(); i++) {
+            Device device = get(i);
+            if (device != null) {
+                device.checkAnticipation();
+            }
+        }
+    }
+
+    /**
+    *   End the anticipation window if it is over and serve the queue
+    */
+    public void checkAnticipation(){
+        if (!anticipating) {
+            return;
+        }
+        long now = HClock.get();
+        if (now - anticipationStart < anticipationWindow) {
+            return;
+        }
+        MyOut.print(this, "Anticipation miss");
+        anticipationMisses++;
+        anticipationIdleTicks += now - anticipationStart;
+        anticipating = false;
+        if (!isBusy()) {
+            IORB newRequest = do_dequeueIORB();
+            if (newRequest != null) {
+                startIO(newRequest);
+            }
+        }
+    }
+
+    /**
+    *   Anticipation statistics: requests served without a seek away,
+    *   windows that ran out and ticks spent waiting
+    */
+    public long getAnticipationHits(){
+        return anticipationHits;
+    }
+    public long getAnticipationMisses(){
+        return anticipationMisses;
+    }
+    public long getAnticipationIdleTicks(){
+        return anticipationIdleTicks;
+    }
+
+    private boolean isAnticipated(IORB iorb){
+        return iorb.getThread().getTask() == anticipatedTask &&
+            Math.abs(iorb.getCylinder() - anticipatedCylinder) <= anticipationDistance;
+    }
+
+    /**
+    *   Ticks the device has spent transferring so far
+    */
+    public long getBusyTicks(){
+        if (isBusy()) {
+            return busyTicks + HClock.get() - busyStart;
+        }
+        return busyTicks;
+    }
+
+    public int getQueueLength(){
+        return ((IORBQueue)iorbQueue).length();
+    }
+
+    /**
+    *   Report the statistics of this device, when tells the time
+    */
+    public void reportStats(String when){
+        stat.report(when);
+    }
+
+    /**
+    *        Remove all IORBs that belong to the given ThreadCB from 
+    *        this device's IORB queue
+    *
+    *        The method is called when the thread dies and the I/O 
+    *        operations it requested are no longer necessary. The memory 
+    *        page used by the IORB must be unlocked and the IORB count for 
+    *        the IORB's file must be decremented.
+    *
+    *        @param thread thread whose I/O is being canceled
+    *
+    *        @OSPProject Devices
+    */
+    public void do_cancelPendingIO(ThreadCB thread)
+    {
+        MyOut.print(this, "Cancel pending I/O for " + thread);
+        ((IORBQueue)iorbQueue).cancelPendingIO(thread);
+    }
+
+    /** 
+    *    Called by OSP after printing an error message. The student can
+    *    insert code here to print various tables and data structures
+    *    in their state just after the error happened.  The body can be
+    *    left empty, if this feature is not used.
+    *
+    *    @OSPProject Devices
+    */
+    public static void atError()
+    {
+    }
+
+    /** 
+    *    Called by OSP after printing a warning message. The student
+    *    can insert code here to print various tables and data
+    *    structures in their state just after the warning happened.
+    *    The body can be left empty, if this feature is not used.
+    *
+    *    @OSPProject Devices
+     */
+    public static void atWarning()
+    {
+    }
+
+    /**
+    *   Calculate the cylinder number of a block
+    */
+    public int computeCylinder(int blockNumber){
+        MyOut.print(this, "Calculate cylinder for block number " + blockNumber);
+        DiskGeometry geometry = getGeometry();
+        //Block number cannot exceed the amount of block a device can hold
+        if (geometry.platter(blockNumber) >= geometry.getPlatters()) {
+            MyOut.error(this, "\tblock number exceeds the device range");
+        }
+        //The cylinder that holds the block
+        int cylinder = geometry.cylinder(blockNumber);
+        MyOut.print(this, "\tCalculate (cylinder/blockNumber): " + cylinder + 
+            "/" + blockNumber);
+        return cylinder;
+    }
+
+    /**
+    *   Calculate the first sector of a block within its track, i.e. the
+    *   angular position the head must reach once it is on the cylinder.
+    *   Blocks are laid out the same way as in computeCylinder().
+    */
+    public int computeSector(int blockNumber){
+        return getGeometry().sector(blockNumber);
+    }
+
+    /**
+    *   Block layout of this disk, worked out on first use since MMU may
+    *   not know its address bits yet when the device is created
+    */
+    public DiskGeometry getGeometry(){
+        if (geometry == null) {
+            Disk disk = (Disk)this;
+            //Number of address bits 
+            int a = MMU.getVirtualAddressBits();
+            //Number of bits for page number
+            int p = MMU.getPageAddressBits();
+            //The block size is equal to the memory page size
+            int blockSize = 1 << (a - p);
+            geometry = new DiskGeometry(blockSize, disk.getBytesPerSector(),
+                disk.getSectorsPerTrack(), disk.getTracksPerPlatter(), disk.getPlatters());
+            MyOut.print(this, "\tAddress bits(page|offset): " + 
+                a + "(" + p + "|" + (a - p) + ")" +
+                "\n\t\tbytes per sector: " + disk.getBytesPerSector() + 
+                "\n\t\tsectors per track: " + disk.getSectorsPerTrack() + 
+                "\n\t\ttracks per platter: " + disk.getTracksPerPlatter() +
+                "\n\t\tplatters per disk: " + disk.getPlatters() +
+                "\n\t\tblocks per track: " + geometry.getBlocksPerTrack() +
+                "\n\t\tblocks per platter: " + geometry.getBlocksPerPlatter());
+        }
+        return geometry;
+    }
+
+    private boolean isThreadDead(ThreadCB thread){
+        if (thread == null || thread.getStatus() == ThreadKill) {
+            return true;
+        } else {
+            TaskCB task = thread.getTask();
+            if (task != null && task.getStatus() == TaskTerm) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+    *   This class descirbes the iorb queue used in device request
+    *   scheduling.
+    *   It keeps the bookkeeping common to all strategies, while the 
+    *   choice of the next request is left to a DiskSchedulingPolicy.
+    */
+    public class IORBQueue implements GenericQueueInterface{
+        private DiskSchedulingPolicy policy;
+
+        public IORBQueue(DiskSchedulingPolicy policy){
+            this.policy = policy;
+        }
+
+        public DiskSchedulingPolicy getPolicy(){
+            return policy;
+        }
+
+        synchronized public void enqueue(IORB iorb){
+            MyOut.print(this, "actual enqueue.");
+            iorb.enqueueTime = HClock.get();
+            policy.enqueue(iorb);
+        }
+
+        /**
+        *   Remove the request selected by the policy
+        */
+        synchronized public IORB dequeue(){
+            MyOut.print(this, "actual dequeue.");
+            if (isEmpty()) {
+                MyOut.print(this, "Cannot remove item from empty IORB queue.");
+                return null;
+            }
+            IORB obj = policy.dequeue((Disk)Device.this);
+            if (obj == null) {
+                MyOut.error(this, "Queue should provide an object");
+                return null;
+            }
+            obj.dequeueTime = HClock.get();
+            return obj;
+        }
+
+        /**
+        *   The method removes the pending IO of a killed thread from
+        *   the device queue and does the cleaning stuff.
+        */
+        synchronized public void cancelPendingIO(ThreadCB thread){
+            MyOut.print(this, "actual canceling of pending I/O for " + thread);
+            if (thread == null) {
+                return;
+            }
+            //Nothing to scan when the thread has no IORB on this device
+            List<IORB> owned = PendingIndex.ofThread(thread, getID());
+            if (owned.isEmpty()) {
+                return;
+            }
+            for (IORB request : policy.cancel(thread)) {
+                PendingIndex.remove(request);
+                cancelingIO(request);
+            }
+        }
+
+        private void cancelingIO(IORB request){
+            MyOut.print(this, "canceling " + request);
+            //Unlock corresponding page
+            PageTableEntry page = request.getPage();
+            if (page.getFrame() != null && page.getFrame().getLockCount() > 0) {
+                page.unlock();
+            }
+            //Decrement the IORB count of the open file
+            OpenFile swapFile = request.getOpenFile();
+            swapFile.decrementIORBCount();
+            //Close the open file handle when the close pending 
+            //flag is true and IORB count becomes 0.
+            if (swapFile.closePending && swapFile.getIORBCount() == 0) {
+                swapFile.close();
+            }
+        }
+
+        public int length(){
+            return policy.size();
+        }
+        public boolean isEmpty(){
+            return policy.isEmpty();
+        }
+        public boolean contains(Object obj){
+            return policy.contains(obj);
+        }
+    }
+}
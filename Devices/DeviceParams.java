@@ -0,0 +1,135 @@
+package osp.Devices;
+
+import java.io.*;
+import java.util.*;
+import osp.Utilities.*;
+
+/**
+*   Student parameters of the Devices module, read from the same
+*   params.osp file that OSP uses.
+*
+*   OSP ignores keys it does not know, so device options are added to
+*   the [Devices] section next to the disk geometry. A key can be given
+*   for all devices or for one device by prefixing it with DeviceN,
+*   where N is the device ID (0 is the swap device):
+*
+*       SchedulingPolicy FSCAN
+*       Device0SchedulingPolicy SSTF
+*/
+public class DeviceParams{
+    /**
+    *   Parameter file used when OSP is started without -paramFile
+    */
+    private static final String DefaultParamFile = "Misc/params.osp";
+    private static String paramFile;
+
+    /**
+    *   section -> (key -> value)
+    */
+    private static HashMap<String, HashMap<String, String>> sections;
+
+    /**
+    *   Value of a key in the [Devices] section
+    */
+    public static String getString(String key, String def){
+        return getString("Devices", key, def);
+    }
+
+    public static String getString(String section, String key, String def){
+        load();
+        HashMap<String, String> values = sections.get(section);
+        if (values == null || !values.containsKey(key)) {
+            return def;
+        }
+        return values.get(key);
+    }
+
+    public static int getInt(String key, int def){
+        return getInt("Devices", key, def);
+    }
+
+    public static int getInt(String section, String key, int def){
+        String value = getString(section, key, null);
+        if (value == null) {
+            return def;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e){
+            MyOut.warning("DeviceParams", "Parameter " + key + " is not a number: " + value);
+            return def;
+        }
+    }
+
+    /**
+    *   Value of DeviceNkey if present, key otherwise
+    */
+    public static String getDeviceString(int deviceID, String key, String def){
+        return getString("Device" + deviceID + key, getString(key, def));
+    }
+
+    public static int getDeviceInt(int deviceID, String key, int def){
+        return getInt("Device" + deviceID + key, getInt(key, def));
+    }
+
+    /**
+    *   Read the parameter file once. A missing file leaves every
+    *   parameter at its default.
+    */
+    synchronized private static void load(){
+        if (sections != null) {
+            return;
+        }
+        sections = new HashMap<String, HashMap<String, String>>();
+        String filename = getParamFile();
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(filename));
+            HashMap<String, String> values = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.startsWith("[") && line.endsWith("]")) {
+                    values = new HashMap<String, String>();
+                    sections.put(line.substring(1, line.length() - 1), values);
+                    continue;
+                }
+                String[] pair = line.split("\\s+", 2);
+                if (values != null && pair.length == 2) {
+                    values.put(pair[0], pair[1]);
+                }
+            }
+            reader.close();
+        } catch (FileNotFoundException e){
+            //Only worth a message if the file was asked for
+            if (!filename.equals(DefaultParamFile)) {
+                System.err.println("IOException: " + e.getMessage());
+            }
+        } catch (IOException ioe){
+            System.err.println("IOException: " + ioe.getMessage());
+        }
+    }
+
+    /**
+    *   Use another parameter file. Must be called before the first
+    *   parameter is read, the replay tools pass their -paramFile here.
+    */
+    synchronized public static void setParamFile(String filename){
+        paramFile = filename;
+        sections = null;
+    }
+
+    /**
+    *   The file set with setParamFile, the osp.paramFile system
+    *   property (set by the FileSys Makefile to the file it gives OSP)
+    *   or the default one.
+    */
+    private static String getParamFile(){
+        if (paramFile != null) {
+            return paramFile;
+        }
+        return System.getProperty("osp.paramFile", DefaultParamFile);
+    }
+}
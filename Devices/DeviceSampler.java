@@ -0,0 +1,60 @@
+package osp.Devices;
+
+import java.io.*;
+import osp.IFLModules.*;
+import osp.Threads.*;
+import osp.Utilities.*;
+import osp.Hardware.*;
+
+/**
+*	This class runs in background and samples every device: whether it
+*	is busy, the length of its IORB queue and its busy ticks so far.
+*
+*	Each sample is one line of deviceSamples.txt:
+*
+*	   clock busy0 queue0 ticks0 busy1 queue1 ticks1 ...
+*
+*	The utilization of a device between two samples is the difference
+*	of its busy ticks divided by the sample interval.
+*/
+class DeviceSampler implements DaemonInterface{
+	private BufferedWriter out;
+
+	public DeviceSampler(){
+		try {
+			out = new BufferedWriter(new FileWriter("deviceSamples.txt"));
+			out.write("# clock, then busy (0/1), queue length and busy ticks per device\r\n");
+			out.flush();
+		} catch (IOException ioe){
+			System.err.println("IOException: " + ioe.getMessage());
+			out = null;
+		}
+	}
+
+	/**
+	*	This method will be repeatedly called, once per sample interval
+	*/
+	public void unleash(ThreadCB thread){
+		if (out == null) {
+			return;
+		}
+		StringBuilder line = new StringBuilder();
+		line.append(HClock.get());
+		for (int i = 0; i < Device.getTableSize(); i++) {
+			Device device = Device.get(i);
+			if (device == null) {
+				continue;
+			}
+			line.append(' ').append(device.isBusy() ? 1 : 0)
+				.append(' ').append(device.getQueueLength())
+				.append(' ').append(device.getBusyTicks());
+		}
+		line.append("\r\n");
+		try {
+			out.write(line.toString());
+			out.flush();
+		} catch (IOException ioe){
+			System.err.println("IOException: " + ioe.getMessage());
+		}
+	}
+}
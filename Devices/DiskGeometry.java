@@ -0,0 +1,72 @@
+package osp.Devices;
+
+/**
+*   Block layout of a disk: where a block of a given number lives.
+*
+*   Blocks are as large as a memory page. They fill a track of one
+*   surface, then the same track of the other surface (two surfaces per
+*   platter), then the next cylinder. A platter is filled before the next
+*   one is used. The sizes depend only on the disk and on the address
+*   bits of MMU, so they are worked out once per device instead of on
+*   every IORB.
+*/
+public class DiskGeometry{
+    private int blockSize;
+    private int sectorsPerTrack;
+    private int platters;
+    private int blocksPerSurfaceTrack;
+    private int blocksPerTrack;
+    private int blocksPerPlatter;
+    private int sectorsPerBlock;
+
+    public DiskGeometry(int blockSize, int bytesPerSector, int sectorsPerTrack,
+        int tracksPerPlatter, int platters){
+        this.blockSize = blockSize;
+        this.sectorsPerTrack = sectorsPerTrack;
+        this.platters = platters;
+        blocksPerSurfaceTrack = sectorsPerTrack * bytesPerSector / blockSize;
+        //Two surfaces
+        blocksPerTrack = blocksPerSurfaceTrack * platters;
+        blocksPerPlatter = blocksPerTrack * tracksPerPlatter;
+        sectorsPerBlock = blocksPerSurfaceTrack == 0 ? 0 : sectorsPerTrack / blocksPerSurfaceTrack;
+    }
+
+    /**
+    *   The platter that holds the block, at least getPlatters() if the
+    *   block is beyond the end of the disk
+    */
+    public int platter(int blockNumber){
+        return blockNumber / blocksPerPlatter;
+    }
+
+    /**
+    *   The cylinder that holds the block
+    */
+    public int cylinder(int blockNumber){
+        return (blockNumber - platter(blockNumber) * blocksPerPlatter) / blocksPerTrack;
+    }
+
+    /**
+    *   The first sector of the block within its track
+    */
+    public int sector(int blockNumber){
+        if (blocksPerSurfaceTrack == 0) {
+            return 0;
+        }
+        int offset = blockNumber % blocksPerTrack;
+        return (offset % blocksPerSurfaceTrack) * sectorsPerBlock;
+    }
+
+    public int getBlockSize(){
+        return blockSize;
+    }
+    public int getPlatters(){
+        return platters;
+    }
+    public int getBlocksPerTrack(){
+        return blocksPerTrack;
+    }
+    public int getBlocksPerPlatter(){
+        return blocksPerPlatter;
+    }
+}
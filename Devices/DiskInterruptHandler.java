@@ -45,6 +45,30 @@ public class DiskInterruptHandler extends IflDiskInterruptHandler
         MyOut.print(this, "Handle disk interrupt");
         //Obtain information from the the interrupt vector
         IORB iorb = (IORB)(InterruptVector.getEvent());
+        finishIORB(iorb);
+        //Set the device idle
+        Device device = Device.get(iorb.getDeviceID());
+        device.transferFinished();
+        device.setBusy(false);
+        //The device restart a new I/O request if there is, unless it
+        //waits for the reading thread to ask for a nearby block
+        if (!device.anticipate(iorb)) {
+            IORB newRequest = device.dequeueIORB();
+            if (newRequest != null) {
+                device.startIO(newRequest);
+            }
+        }
+        //Windows of the other devices may have run out meanwhile
+        Device.checkAnticipations();
+        //A chance to dispatch new thread
+        ThreadCB.dispatch();
+    }
+
+    /**
+    *   Complete one IORB: release its open file and page, update the
+    *   frame and wake up the waiting threads.
+    */
+    private void finishIORB(IORB iorb){
         iorb.finishTime = HClock.get();
         //Decrement the IORB count of the associated openfile
         OpenFile swapFile = iorb.getOpenFile();
@@ -63,7 +87,7 @@ public class DiskInterruptHandler extends IflDiskInterruptHandler
         //Set reference bit and dirty bit of frame
         TaskCB task = iorb.getThread().getTask();
         FrameTableEntry frame = page.getFrame();
-        if (iorb.getDeviceID() != SwapDeviceID) {
+        if (!iorb.swapIO) {
             //When it is not swaping, set reference bit
             if (task.getStatus() == TaskLive) {
                 frame.setReferenced(true);
@@ -82,20 +106,8 @@ public class DiskInterruptHandler extends IflDiskInterruptHandler
         if (task.getStatus() == TaskTerm && frame.isReserved()) {
             frame.setUnreserved(task);
         }
+        Device.get(iorb.getDeviceID()).recordCompletion(iorb);
         //Notify all threads waiting for this IORB
         iorb.notifyThreads();
-        //Set the device idle
-        Device device = Device.get(iorb.getDeviceID());
-        device.setBusy(false);
-        //The device restart a new I/O request if there is
-        IORB newRequest = device.dequeueIORB();
-        if (newRequest != null) {
-            device.startIO(newRequest);
-        }
-        //A chance to dispatch new thread
-        ThreadCB.dispatch();
     }
-
-
 }
-
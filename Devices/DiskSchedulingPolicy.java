@@ -0,0 +1,43 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+import osp.Hardware.Disk;
+
+/**
+*   A disk scheduling strategy for the IORB queue of one device.
+*
+*   Device.IORBQueue keeps the bookkeeping that every strategy shares
+*   (timestamps, page unlocking, IORB count of the open file) and leaves
+*   the choice of the next IORB to an implementation of this interface.
+*   Each device gets its own instance, chosen by name from params.osp,
+*   see DeviceParams.
+*/
+public interface DiskSchedulingPolicy{
+    /**
+    *   Add a new request, its cylinder is already set.
+    */
+    public void enqueue(IORB iorb);
+
+    /**
+    *   Select the next request to serve and remove it.
+    *   @param disk the device, for its head position and geometry
+    *   @return null when there is no pending request
+    */
+    public IORB dequeue(Disk disk);
+
+    /**
+    *   Remove all requests of a thread.
+    *   @return the removed requests
+    */
+    public List<IORB> cancel(ThreadCB thread);
+
+    public int size();
+    public boolean isEmpty();
+    public boolean contains(Object obj);
+
+    /**
+    *   Name of the policy as written in params.osp
+    */
+    public String getName();
+}
@@ -0,0 +1,44 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+import osp.Hardware.Disk;
+
+/**
+*   FIFO: requests are served in arrival order.
+*/
+public class FIFOPolicy implements DiskSchedulingPolicy{
+    private CylinderQueue queue = new CylinderQueue();
+
+    public void enqueue(IORB iorb){
+        queue.add(iorb);
+    }
+
+    /**
+    *   Remove the oldest request
+    */
+    public IORB dequeue(Disk disk){
+        IORB iorb = queue.oldest();
+        if (iorb != null) {
+            queue.remove(iorb);
+        }
+        return iorb;
+    }
+
+    public List<IORB> cancel(ThreadCB thread){
+        return queue.removeThread(thread);
+    }
+
+    public int size(){
+        return queue.size();
+    }
+    public boolean isEmpty(){
+        return queue.isEmpty();
+    }
+    public boolean contains(Object obj){
+        return queue.contains(obj);
+    }
+    public String getName(){
+        return "FIFO";
+    }
+}
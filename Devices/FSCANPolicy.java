@@ -0,0 +1,71 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+import osp.Hardware.Disk;
+
+/**
+*   F-SCAN: new requests go to the queuing queue while the scanning
+*   queue is swept. When the scanning queue is empty the two queues are
+*   swapped, so requests arriving during a sweep cannot starve the ones
+*   already waiting.
+*/
+public class FSCANPolicy implements DiskSchedulingPolicy{
+    private CylinderQueue scanningQueue = new CylinderQueue();
+    private CylinderQueue queuingQueue = new CylinderQueue();
+    /**
+    *   Whether the current sweep goes from the highest cylinder down,
+    *   decided when the queues are swapped
+    */
+    private boolean descending;
+
+    public void enqueue(IORB iorb){
+        queuingQueue.add(iorb);
+    }
+
+    /**
+    *   Remove the next request of the scanning queue. The sweep starts
+    *   from the edge closer to the head at the time of the swap and keeps
+    *   its direction until the scanning queue is empty.
+    */
+    public IORB dequeue(Disk disk){
+        if (scanningQueue.isEmpty()) {
+            if (queuingQueue.isEmpty()) {
+                return null;
+            }
+            //when scanning queue is totally scanned, swap scanning
+            //queue and queuing queue
+            CylinderQueue tmpQueue = queuingQueue;
+            queuingQueue = scanningQueue;
+            scanningQueue = tmpQueue;
+            descending = disk.getHeadPosition() > disk.getTracksPerPlatter() / 2;
+        }
+        IORB iorb = null;
+        if (descending) {
+            iorb = scanningQueue.highest();
+        } else{
+            iorb = scanningQueue.lowest();
+        }
+        scanningQueue.remove(iorb);
+        return iorb;
+    }
+
+    public List<IORB> cancel(ThreadCB thread){
+        List<IORB> removed = new ArrayList<IORB>(scanningQueue.removeThread(thread));
+        removed.addAll(queuingQueue.removeThread(thread));
+        return removed;
+    }
+
+    public int size(){
+        return scanningQueue.size() + queuingQueue.size();
+    }
+    public boolean isEmpty(){
+        return scanningQueue.isEmpty() && queuingQueue.isEmpty();
+    }
+    public boolean contains(Object obj){
+        return scanningQueue.contains(obj) || queuingQueue.contains(obj);
+    }
+    public String getName(){
+        return "FSCAN";
+    }
+}
@@ -0,0 +1,244 @@
+package osp.Devices;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+/**
+*	Writer of the head movement records of all devices.
+*
+*	There is one recorder per simulation. Records are kept as primitives
+*	in a bounded ring buffer and a single background thread drains them
+*	into one buffered file channel per device. When the ring is full the
+*	recording thread waits for the writer, so no record is lost, and
+*	everything left is written when the simulation ends.
+*/
+public class HeadRecorder implements Runnable{
+	private static final int Capacity = 4096;
+	private static final int BufferSize = 64 * 1024;
+
+	private static HeadRecorder recorder;
+
+	/**
+	*	The recorder of this simulation, started on first use
+	*/
+	synchronized public static HeadRecorder get(){
+		if (recorder == null) {
+			recorder = new HeadRecorder();
+			Thread writer = new Thread(recorder, "HeadRecorder");
+			writer.setDaemon(true);
+			recorder.writer = writer;
+			writer.start();
+			Runtime.getRuntime().addShutdownHook(new Thread(){
+				public void run(){
+					recorder.close();
+				}
+			});
+		}
+		return recorder;
+	}
+
+	/**
+	*	Ring buffer, one array per field
+	*/
+	private int[] devices = new int[Capacity];
+	private int[] srcs = new int[Capacity];
+	private int[] dests = new int[Capacity];
+	private long[] creates = new long[Capacity];
+	private long[] times = new long[Capacity];
+	private int head = 0;
+	private int count = 0;
+
+	/**
+	*	Batch taken from the ring by the writer
+	*/
+	private int[] batchDevices = new int[Capacity];
+	private int[] batchSrcs = new int[Capacity];
+	private int[] batchDests = new int[Capacity];
+	private long[] batchCreates = new long[Capacity];
+	private long[] batchTimes = new long[Capacity];
+	private boolean writing = false;
+	private boolean closed = false;
+	private Thread writer;
+
+	private HashMap<Integer, String> filenames = new HashMap<Integer, String>();
+	private HashMap<Integer, FileChannel> channels = new HashMap<Integer, FileChannel>();
+	private HashMap<Integer, ByteBuffer> buffers = new HashMap<Integer, ByteBuffer>();
+
+	private HeadRecorder(){
+	}
+
+	/**
+	*	Set the output file of a device
+	*/
+	synchronized public void register(int device, String filename){
+		filenames.put(device, filename);
+	}
+
+	/**
+	*	Queue a head movement record, waiting if the ring is full
+	*/
+	synchronized public void record(int device, int s, int d, long c, long t){
+		while (count == Capacity && !closed) {
+			try {
+				wait();
+			} catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+		if (closed) {
+			return;
+		}
+		int tail = (head + count) % Capacity;
+		devices[tail] = device;
+		srcs[tail] = s;
+		dests[tail] = d;
+		creates[tail] = c;
+		times[tail] = t;
+		count++;
+		notifyAll();
+	}
+
+	/**
+	*	Wait until every queued record is written to its file
+	*/
+	synchronized public void flush(){
+		while ((count > 0 || writing) && writer.isAlive()) {
+			try {
+				wait();
+			} catch (InterruptedException e){
+				Thread.currentThread().interrupt();
+				return;
+			}
+		}
+	}
+
+	/**
+	*	Write what is left and close the files
+	*/
+	public void close(){
+		synchronized (this){
+			closed = true;
+			notifyAll();
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e){
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	public void run(){
+		while (true) {
+			int n;
+			synchronized (this){
+				while (count == 0 && !closed) {
+					try {
+						wait();
+					} catch (InterruptedException e){
+						closed = true;
+					}
+				}
+				if (count == 0) {
+					break;
+				}
+				n = count;
+				for (int i = 0; i < n; i++) {
+					int j = (head + i) % Capacity;
+					batchDevices[i] = devices[j];
+					batchSrcs[i] = srcs[j];
+					batchDests[i] = dests[j];
+					batchCreates[i] = creates[j];
+					batchTimes[i] = times[j];
+				}
+				head = (head + n) % Capacity;
+				count = 0;
+				writing = true;
+				notifyAll();
+			}
+			writeBatch(n);
+			synchronized (this){
+				writing = false;
+				notifyAll();
+			}
+		}
+		closeChannels();
+		synchronized (this){
+			notifyAll();
+		}
+	}
+
+	/**
+	*	Format the batch into the device buffers and write them out
+	*/
+	private void writeBatch(int n){
+		StringBuilder line = new StringBuilder(64);
+		for (int i = 0; i < n; i++) {
+			line.setLength(0);
+			line.append('[').append(batchTimes[i]).append("]: ")
+				.append(batchSrcs[i]).append('-').append(batchDests[i])
+				.append("\tIORB created: ").append(batchCreates[i]).append("\r\n");
+			ByteBuffer buffer = getBuffer(batchDevices[i]);
+			if (buffer == null) {
+				continue;
+			}
+			if (buffer.remaining() < line.length()) {
+				drain(batchDevices[i], buffer);
+			}
+			for (int k = 0; k < line.length(); k++) {
+				buffer.put((byte)line.charAt(k));
+			}
+		}
+		for (Integer device : buffers.keySet()) {
+			drain(device, buffers.get(device));
+		}
+	}
+
+	private ByteBuffer getBuffer(int device){
+		ByteBuffer buffer = buffers.get(device);
+		if (buffer != null) {
+			return buffer;
+		}
+		String filename;
+		synchronized (this){
+			filename = filenames.get(device);
+		}
+		if (filename == null) {
+			filename = "headRecord" + device + ".txt";
+		}
+		try {
+			FileChannel channel = new FileOutputStream(filename, true).getChannel();
+			channels.put(device, channel);
+			buffer = ByteBuffer.allocate(BufferSize);
+			buffers.put(device, buffer);
+		} catch (IOException ioe){
+			System.err.println("IOException: " + ioe.getMessage());
+		}
+		return buffer;
+	}
+
+	private void drain(int device, ByteBuffer buffer){
+		buffer.flip();
+		try {
+			FileChannel channel = channels.get(device);
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException ioe){
+			System.err.println("IOException: " + ioe.getMessage());
+		}
+		buffer.clear();
+	}
+
+	private void closeChannels(){
+		for (FileChannel channel : channels.values()) {
+			try {
+				channel.close();
+			} catch (IOException ioe){
+				System.err.println("IOException: " + ioe.getMessage());
+			}
+		}
+	}
+}
@@ -14,12 +14,45 @@ import osp.Hardware.*;
 */
 public class IORB extends IflIORB
 {
+    /**
+    *   I/O priority classes, a lower value is served first:
+    *   a swap-in blocks the faulting thread, and so does the swap-out
+    *   of the victim of a page fault; other swap-outs are background
+    *   writeback and everything on other devices is regular file I/O.
+    */
+    public static final int SwapIn = 0;
+    public static final int SwapOut = 1;
+    public static final int FileIO = 2;
+    public static final int NumberOfClasses = 3;
+
     public Long createTime;
     public Long enqueueTime;
     public Long dequeueTime;
     public Long handleTime;
     public Long finishTime;
     /**
+    *   Clock time after which the request is served ahead of the
+    *   seek-optimal choice, set by policies with aging
+    */
+    public Long deadline;
+    /**
+    *   First sector of the block within its track, set on enqueue
+    */
+    public int sector;
+    /**
+    *   Head cylinder when the request was dequeued
+    */
+    public int sourceCylinder;
+    /**
+    *   I/O priority class of the request
+    */
+    public int ioClass;
+    /**
+    *   True for swap-ins and swap-outs, also when striping moved the
+    *   IORB off the swap device
+    */
+    public boolean swapIO;
+    /**
     *       The IORB constructor.
     *       Must have
     *
@@ -32,9 +65,28 @@ public class IORB extends IflIORB
     public IORB(ThreadCB thread, PageTableEntry page, 
     int blockNumber, int deviceID, 
     int ioType, OpenFile openFile) {
-        super(thread, page, blockNumber, deviceID, ioType, openFile);
+        super(thread, page, 
+            SwapStriping.block(deviceID, blockNumber), 
+            SwapStriping.device(deviceID, blockNumber), 
+            ioType, openFile);
         MyOut.print(this, "Create IORB object " + this);
         createTime = HClock.get();
+        swapIO = deviceID == SwapDeviceID;
+        if (!swapIO) {
+            ioClass = FileIO;
+        } else if (ioType == FileRead || isVictimWrite(page)) {
+            ioClass = SwapIn;
+        } else{
+            ioClass = SwapOut;
+        }
     }
 
-}
\ No newline at end of file
+    /**
+    *   The page fault handler reserves the frame before it swaps out
+    *   the victim, and the faulting thread waits for that write. The
+    *   daemons only write back frames that are not reserved.
+    */
+    private static boolean isVictimWrite(PageTableEntry page){
+        return page != null && page.getFrame() != null && page.getFrame().isReserved();
+    }
+}
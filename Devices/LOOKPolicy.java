@@ -0,0 +1,56 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+import osp.Hardware.Disk;
+
+/**
+*   LOOK: the head sweeps in one direction serving every request on its
+*   way and turns around at the last pending cylinder instead of the
+*   edge of the platter. The direction is kept between dequeues.
+*/
+public class LOOKPolicy implements DiskSchedulingPolicy{
+    private CylinderQueue queue = new CylinderQueue();
+    /**
+    *   Current sweep direction, true towards higher cylinders
+    */
+    private boolean movingUp = true;
+
+    public void enqueue(IORB iorb){
+        queue.add(iorb);
+    }
+
+    /**
+    *   Remove the closest request in the sweep direction, reversing
+    *   the direction when there is none.
+    */
+    public IORB dequeue(Disk disk){
+        int head = disk.getHeadPosition();
+        IORB iorb = movingUp ? queue.ceiling(head) : queue.floor(head);
+        if (iorb == null) {
+            movingUp = !movingUp;
+            iorb = movingUp ? queue.ceiling(head) : queue.floor(head);
+        }
+        if (iorb != null) {
+            queue.remove(iorb);
+        }
+        return iorb;
+    }
+
+    public List<IORB> cancel(ThreadCB thread){
+        return queue.removeThread(thread);
+    }
+
+    public int size(){
+        return queue.size();
+    }
+    public boolean isEmpty(){
+        return queue.isEmpty();
+    }
+    public boolean contains(Object obj){
+        return queue.contains(obj);
+    }
+    public String getName(){
+        return "LOOK";
+    }
+}
@@ -0,0 +1,104 @@
+package osp.Devices;
+
+/**
+*   Log-linear histogram of latencies in ticks.
+*
+*   Values below 2^SubBits are counted exactly, above that every power
+*   of two is split into 2^SubBits equal buckets, so a percentile is off
+*   by at most 1/2^SubBits of its value. Recording a value only
+*   increments a counter in a fixed array.
+*/
+public class LatencyHistogram{
+    private static final int SubBits = 4;
+    private static final int SubCount = 1 << SubBits;
+    private static final int Size = (63 - SubBits) * SubCount + 2 * SubCount;
+
+    private long[] counts = new long[Size];
+    private long count = 0;
+    private long max = 0;
+    private long sum = 0;
+
+    /**
+    *   Count one latency, negative values are counted as 0
+    */
+    public void record(long value){
+        if (value < 0) {
+            value = 0;
+        }
+        counts[index(value)]++;
+        count++;
+        sum += value;
+        if (value > max) {
+            max = value;
+        }
+    }
+
+    public long getCount(){
+        return count;
+    }
+
+    public long getMax(){
+        return max;
+    }
+
+    public double getMean(){
+        return count == 0 ? 0 : (double)sum / count;
+    }
+
+    /**
+    *   The smallest recorded value that q of the values do not exceed,
+    *   rounded up to the end of its bucket
+    *   @param q fraction between 0 and 1
+    */
+    public long getPercentile(double q){
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long)Math.ceil(q * count);
+        if (rank < 1) {
+            rank = 1;
+        }
+        long seen = 0;
+        for (int i = 0; i < Size; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highest(i), max);
+            }
+        }
+        return max;
+    }
+
+    /**
+    *   One line summary: count, mean, p50, p90, p99, p99.9 and max
+    */
+    public String toString(){
+        return "n=" + count +
+            " mean=" + String.format("%.1f", getMean()) +
+            " p50=" + getPercentile(0.5) +
+            " p90=" + getPercentile(0.9) +
+            " p99=" + getPercentile(0.99) +
+            " p999=" + getPercentile(0.999) +
+            " max=" + max;
+    }
+
+    private static int index(long value){
+        if (value < SubCount) {
+            return (int)value;
+        }
+        //Position of the highest bit, at least SubBits
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SubBits;
+        return shift * SubCount + (int)(value >>> shift);
+    }
+
+    /**
+    *   The highest value counted in a bucket
+    */
+    private static long highest(int index){
+        if (index < 2 * SubCount) {
+            return index;
+        }
+        int shift = index / SubCount - 1;
+        long top = index - shift * SubCount;
+        return ((top + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,53 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+
+/**
+*   Index of the outstanding IORBs of every thread, across all devices.
+*
+*   An IORB is in the index from the moment a device queues it until
+*   the device starts on it or it is canceled. Canceling the I/O of a
+*   killed thread looks up its IORBs here instead of scanning the device
+*   queues, and a device the thread has nothing queued on is skipped at
+*   once.
+*/
+public class PendingIndex{
+    private static HashMap<ThreadCB, LinkedHashSet<IORB>> threads =
+        new HashMap<ThreadCB, LinkedHashSet<IORB>>();
+
+    synchronized public static void add(IORB iorb){
+        LinkedHashSet<IORB> owned = threads.get(iorb.getThread());
+        if (owned == null) {
+            owned = new LinkedHashSet<IORB>();
+            threads.put(iorb.getThread(), owned);
+        }
+        owned.add(iorb);
+    }
+
+    synchronized public static void remove(IORB iorb){
+        LinkedHashSet<IORB> owned = threads.get(iorb.getThread());
+        if (owned != null && owned.remove(iorb) && owned.isEmpty()) {
+            threads.remove(iorb.getThread());
+        }
+    }
+
+    /**
+    *   Outstanding IORBs of a thread on one device, in enqueue order.
+    *   The list is a copy, so the IORBs can be removed while it is
+    *   walked.
+    */
+    synchronized public static List<IORB> ofThread(ThreadCB thread, int deviceID){
+        LinkedHashSet<IORB> owned = threads.get(thread);
+        if (owned == null) {
+            return Collections.emptyList();
+        }
+        List<IORB> result = new ArrayList<IORB>(owned.size());
+        for (IORB iorb : owned) {
+            if (iorb.getDeviceID() == deviceID) {
+                result.add(iorb);
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+package osp.Devices;
+
+import osp.Utilities.*;
+
+/**
+*   Creates the scheduling policy of a device from params.osp. Used by
+*   Device and by the DiskReplay tool, so both run the same policies
+*   with the same settings.
+*/
+public class Policies{
+    /**
+    *   Name of the policy used when params.osp does not choose one
+    */
+    public static final String DefaultPolicy = "FSCAN";
+
+    /**
+    *   The policy of a device: SchedulingPolicy, with one queue per I/O
+    *   priority class if PriorityClasses is on.
+    */
+    public static DiskSchedulingPolicy create(int deviceID){
+        return create(deviceID, DeviceParams.getDeviceString(
+            deviceID, "SchedulingPolicy", DefaultPolicy));
+    }
+
+    /**
+    *   The policy of a device with the given name instead of the one in
+    *   params.osp, other settings are read as usual.
+    */
+    public static DiskSchedulingPolicy create(int deviceID, String name){
+        if (DeviceParams.getDeviceInt(deviceID, "PriorityClasses", 0) != 0) {
+            //One queue of the policy per I/O priority class
+            DiskSchedulingPolicy[] classes = 
+                new DiskSchedulingPolicy[IORB.NumberOfClasses];
+            for (int i = 0; i < classes.length; i++) {
+                classes[i] = createPolicy(deviceID, name);
+            }
+            return new PriorityPolicy(classes, 
+                DeviceParams.getDeviceInt(deviceID, "PriorityQuota", 8));
+        }
+        return createPolicy(deviceID, name);
+    }
+
+    /**
+    *   Create the scheduling policy with the given name, FIFO is used
+    *   when the name is unknown.
+    */
+    private static DiskSchedulingPolicy createPolicy(int deviceID, String name){
+        MyOut.print("Device" + deviceID, "Scheduling policy: " + name);
+        //Aging bound of SSTF and C-SCAN, 0 means no bound
+        int maxWaitTime = DeviceParams.getDeviceInt(deviceID, "MaxWaitTime", 0);
+        if (name.equalsIgnoreCase("FIFO")) {
+            return new FIFOPolicy();
+        } else if (name.equalsIgnoreCase("CSCAN")) {
+            return new CSCANPolicy(maxWaitTime);
+        } else if (name.equalsIgnoreCase("CLOOK")) {
+            //CSCAN already jumps back to the lowest pending cylinder
+            return new CSCANPolicy(0);
+        } else if (name.equalsIgnoreCase("SSTF")) {
+            return new SSTFPolicy(maxWaitTime);
+        } else if (name.equalsIgnoreCase("FSCAN")) {
+            return new FSCANPolicy();
+        } else if (name.equalsIgnoreCase("LOOK")) {
+            return new LOOKPolicy();
+        } else if (name.equalsIgnoreCase("SATF")) {
+            return new SATFPolicy(
+                DeviceParams.getDeviceInt(deviceID, "RotationTime", 0));
+        } else if (name.equalsIgnoreCase("CFQ")) {
+            return new CFQPolicy(
+                DeviceParams.getDeviceInt(deviceID, "CFQQuantum", 32),
+                DeviceParams.getDeviceInt(deviceID, "CFQSliceTime", 2000),
+                DeviceParams.getDeviceInt(deviceID, "CFQMaxWaitTime", 5000));
+        } else if (name.equalsIgnoreCase("DEADLINE")) {
+            return new DeadlinePolicy(
+                DeviceParams.getDeviceInt(deviceID, "ReadExpireTime", 500),
+                DeviceParams.getDeviceInt(deviceID, "WriteExpireTime", 5000),
+                DeviceParams.getDeviceInt(deviceID, "FifoBatch", 16));
+        } else if (name.equalsIgnoreCase("ADAPTIVE")) {
+            String greedy = DeviceParams.getDeviceString(
+                deviceID, "AdaptiveGreedy", "SSTF");
+            String fair = DeviceParams.getDeviceString(
+                deviceID, "AdaptiveFair", "FSCAN");
+            if (greedy.equalsIgnoreCase(name) || fair.equalsIgnoreCase(name)) {
+                MyOut.warning("Device" + deviceID, 
+                    "ADAPTIVE cannot switch to itself, use SSTF/FSCAN");
+                greedy = "SSTF";
+                fair = "FSCAN";
+            }
+            return new AdaptivePolicy(
+                createPolicy(deviceID, greedy), createPolicy(deviceID, fair),
+                DeviceParams.getDeviceInt(deviceID, "AdaptiveWaitLimit", 2000),
+                DeviceParams.getDeviceInt(deviceID, "AdaptiveDepth", 4),
+                DeviceParams.getDeviceInt(deviceID, "AdaptiveWindow", 32),
+                DeviceParams.getDeviceInt(deviceID, "AdaptiveMinDwell", 256));
+        }
+        MyOut.warning("Device" + deviceID, 
+            "Unknown scheduling policy " + name + ", use FIFO");
+        return new FIFOPolicy();
+    }
+}
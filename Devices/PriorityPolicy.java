@@ -0,0 +1,101 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+import osp.Hardware.Disk;
+import osp.Utilities.*;
+
+/**
+*   I/O priority classes on top of any other policy: every class of
+*   IORB.ioClass has its own queue, and the highest class with pending
+*   requests is served first, so swap-ins of faulting threads are not
+*   queued behind writeback or file I/O.
+*
+*   To keep lower classes from starving, a class that has been passed
+*   over quota times while it had pending requests is served next.
+*/
+public class PriorityPolicy implements DiskSchedulingPolicy{
+    /**
+    *   One queue per class, index is the class
+    */
+    private DiskSchedulingPolicy[] classes;
+    /**
+    *   Times each class was passed over while non-empty
+    */
+    private int[] skipped;
+    private int quota;
+
+    public PriorityPolicy(DiskSchedulingPolicy[] classes, int quota){
+        this.classes = classes;
+        this.skipped = new int[classes.length];
+        this.quota = Math.max(1, quota);
+    }
+
+    public void enqueue(IORB iorb){
+        classes[iorb.ioClass].enqueue(iorb);
+    }
+
+    public IORB dequeue(Disk disk){
+        int chosen = -1;
+        //A starving class goes first, the lowest one before the others
+        for (int i = classes.length - 1; i >= 0; i--) {
+            if (!classes[i].isEmpty() && skipped[i] >= quota) {
+                chosen = i;
+                MyOut.print(disk, "Serve starving I/O class " + i);
+                break;
+            }
+        }
+        if (chosen < 0) {
+            for (int i = 0; i < classes.length; i++) {
+                if (!classes[i].isEmpty()) {
+                    chosen = i;
+                    break;
+                }
+            }
+        }
+        if (chosen < 0) {
+            return null;
+        }
+        for (int i = 0; i < classes.length; i++) {
+            if (i == chosen) {
+                skipped[i] = 0;
+            } else if (!classes[i].isEmpty()) {
+                skipped[i]++;
+            }
+        }
+        return classes[chosen].dequeue(disk);
+    }
+
+    public List<IORB> cancel(ThreadCB thread){
+        List<IORB> removed = new ArrayList<IORB>();
+        for (int i = 0; i < classes.length; i++) {
+            removed.addAll(classes[i].cancel(thread));
+        }
+        return removed;
+    }
+
+    public int size(){
+        int size = 0;
+        for (int i = 0; i < classes.length; i++) {
+            size += classes[i].size();
+        }
+        return size;
+    }
+    public boolean isEmpty(){
+        for (int i = 0; i < classes.length; i++) {
+            if (!classes[i].isEmpty()) {
+                return false;
+            }
+        }
+        return true;
+    }
+    public boolean contains(Object obj){
+        if (!(obj instanceof IORB)) {
+            return false;
+        }
+        return classes[((IORB)obj).ioClass].contains(obj);
+    }
+    public String getName(){
+        return "PRIORITY(" + classes[0].getName() + ")";
+    }
+}
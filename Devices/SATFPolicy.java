@@ -0,0 +1,145 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+import osp.Hardware.*;
+
+/**
+*   SATF (shortest access time first): requests are ranked by the
+*   estimated seek time plus the rotational delay from the current head
+*   position, instead of by cylinder distance only.
+*
+*   Rotation is counted in ticks, like the seek: one revolution takes
+*   RotationTime ticks, by default the seek time over one cylinder for
+*   each sector of a track, so that a sector passes under the head in
+*   the time the head moves by one cylinder. (OSP itself only charges
+*   the seek, and RevolutionsPerTick is far too fast next to it for the
+*   rotation to ever change the order.) The platter is at angle 0 at
+*   clock 0, so the sector under the head at any clock time is known.
+*   Once the head is on the target cylinder it waits until the first
+*   sector of the block comes around.
+*/
+public class SATFPolicy implements DiskSchedulingPolicy{
+    private CylinderQueue queue = new CylinderQueue();
+    /**
+    *   Ticks per revolution, 0 for the default
+    */
+    private int rotationTime;
+
+    public SATFPolicy(){
+        this(0);
+    }
+
+    public SATFPolicy(int rotationTime){
+        this.rotationTime = rotationTime;
+    }
+
+    public void enqueue(IORB iorb){
+        queue.add(iorb);
+    }
+
+    /**
+    *   Remove the request with the shortest estimated access time.
+    *   Cylinders are visited outwards from the head, and a direction
+    *   is abandoned once its seek time alone exceeds the best access
+    *   time, since rotation can only add to it.
+    */
+    public IORB dequeue(Disk disk){
+        int head = disk.getHeadPosition();
+        long now = HClock.get();
+        IORB best = null;
+        double bestTime = Double.MAX_VALUE;
+        IORB up = queue.ceiling(head);
+        IORB down = queue.lower(head);
+        while (up != null || down != null) {
+            //Take the closer of the two frontiers
+            IORB next;
+            if (down == null || (up != null && 
+                up.getCylinder() - head <= head - down.getCylinder())) {
+                next = up;
+            } else{
+                next = down;
+            }
+            int cylinder = next.getCylinder();
+            if (seekTime(disk, head, cylinder) >= bestTime) {
+                break;
+            }
+            for (IORB iorb : queue.at(cylinder)) {
+                double time = accessTime(disk, head, now, iorb);
+                if (time < bestTime) {
+                    bestTime = time;
+                    best = iorb;
+                }
+            }
+            if (next == up) {
+                up = queue.higher(cylinder);
+            } else{
+                down = queue.lower(cylinder);
+            }
+        }
+        if (best != null) {
+            queue.remove(best);
+        }
+        return best;
+    }
+
+    /**
+    *   Ticks spent moving the head between two cylinders
+    */
+    private double seekTime(Disk disk, int from, int to){
+        return (double)Math.abs(to - from) * disk.getSeekTimePerCylinder();
+    }
+
+    /**
+    *   Estimated ticks from now until the head is over the first sector
+    *   of the IORB's block
+    */
+    private double accessTime(Disk disk, int head, long now, IORB iorb){
+        double seek = seekTime(disk, head, iorb.getCylinder());
+        return seek + rotationalDelay(now + seek, iorb.sector,
+            disk.getSectorsPerTrack(), rotationTime(disk, rotationTime));
+    }
+
+    /**
+    *   Ticks per revolution of the disk, the given one or the default
+    */
+    public static double rotationTime(Disk disk, int rotationTime){
+        if (rotationTime > 0) {
+            return rotationTime;
+        }
+        return Math.max(1, (double)disk.getSeekTimePerCylinder() * disk.getSectorsPerTrack());
+    }
+
+    /**
+    *   Ticks to wait, with the head on the cylinder at the given time,
+    *   until the sector comes under it
+    */
+    public static double rotationalDelay(double time, int sector, int sectorsPerTrack,
+        double rotationTime){
+        //Angle under the head, in revolutions
+        double angle = time / rotationTime;
+        angle -= Math.floor(angle);
+        double wait = (double)sector / sectorsPerTrack - angle;
+        if (wait < 0) {
+            wait += 1;
+        }
+        return wait * rotationTime;
+    }
+
+    public List<IORB> cancel(ThreadCB thread){
+        return queue.removeThread(thread);
+    }
+
+    public int size(){
+        return queue.size();
+    }
+    public boolean isEmpty(){
+        return queue.isEmpty();
+    }
+    public boolean contains(Object obj){
+        return queue.contains(obj);
+    }
+    public String getName(){
+        return "SATF";
+    }
+}
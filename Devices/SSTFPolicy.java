@@ -0,0 +1,68 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Threads.ThreadCB;
+import osp.Hardware.*;
+import osp.Utilities.*;
+
+/**
+*   SSTF: the request closest to the head, in both directions, is served
+*   first.
+*/
+public class SSTFPolicy implements DiskSchedulingPolicy{
+    private CylinderQueue queue = new CylinderQueue();
+    /**
+    *   Maximum ticks a request may wait before it is served first,
+    *   0 disables aging
+    */
+    private int maxWaitTime;
+
+    public SSTFPolicy(){
+        this(0);
+    }
+
+    public SSTFPolicy(int maxWaitTime){
+        this.maxWaitTime = maxWaitTime;
+    }
+
+    public void enqueue(IORB iorb){
+        if (maxWaitTime > 0) {
+            iorb.deadline = iorb.enqueueTime + maxWaitTime;
+        }
+        queue.add(iorb);
+    }
+
+    /**
+    *   Remove the request with the shortest seek from the head, unless
+    *   the oldest request has passed its deadline.
+    */
+    public IORB dequeue(Disk disk){
+        IORB iorb = queue.expired(HClock.get());
+        if (iorb != null) {
+            MyOut.print(disk, "Serve expired " + iorb);
+        } else{
+            iorb = queue.nearest(disk.getHeadPosition());
+        }
+        if (iorb != null) {
+            queue.remove(iorb);
+        }
+        return iorb;
+    }
+
+    public List<IORB> cancel(ThreadCB thread){
+        return queue.removeThread(thread);
+    }
+
+    public int size(){
+        return queue.size();
+    }
+    public boolean isEmpty(){
+        return queue.isEmpty();
+    }
+    public boolean contains(Object obj){
+        return queue.contains(obj);
+    }
+    public String getName(){
+        return "SSTF";
+    }
+}
@@ -1,78 +1,108 @@
 package osp.Devices;
 
-import osp.Utilities.*;
 import java.io.*;
+import osp.Utilities.*;
+import osp.Hardware.*;
+import osp.Tasks.*;
 
 /**
-*	Statistics in these model. Only device head record included.
+*	Statistics in these model: the head record, the binary trace of
+*	completed IORBs and their latency histograms.
 */
 public class Stats{
+	private Device device;
 	/**
-	*	Head movement record for each device
+	*	Shared by all devices, writes the records in background
 	*/
-	private GenericList diskHList = new GenericList();
-	private Device device;
+	private HeadRecorder recorder;
+	private boolean registered = false;
+	/**
+	*	Binary trace of completed IORBs, null when disabled
+	*/
+	private TraceWriter trace;
+	/**
+	*	Queue wait (enqueue to dequeue) and service time (dequeue to
+	*	finish) of completed IORBs
+	*/
+	private LatencyHistogram waitTime = new LatencyHistogram();
+	private LatencyHistogram serviceTime = new LatencyHistogram();
 
 	public Stats(Device d){
 		this.device = d;
+		this.recorder = HeadRecorder.get();
+		if (DeviceParams.getDeviceInt(d.getID(), "BinaryTrace", 1) != 0) {
+			try {
+				trace = new TraceWriter("trace" + d + ".bin", d.getID());
+			} catch (IOException ioe){
+				System.err.println("IOException: " + ioe.getMessage());
+			}
+		}
+		Runtime.getRuntime().addShutdownHook(new Thread(){
+			public void run(){
+				report("shutdown");
+			}
+		});
 	}
 
 	/**
-	*	Head record, tuple (head position, record time)
+	*	Insert head movement record. The record goes to the recorder's
+	*	ring buffer and is written to headRecord<device>.txt by its
+	*	writer thread.
 	*/
-	public class HeadStat{
-		public int srcPos;
-		public int destPos;
-		public long time;
-		public HeadStat(int s, int d, long t){
-			this.srcPos = s;
-			this.destPos = d;
-			this.time = t;
+	public void inputHeadStat(
+		final int s, final int d,
+		final long c, final long t){
+		if (!registered) {
+			//The file is named after the device
+			recorder.register(device.getID(), "headRecord" + device + ".txt");
+			registered = true;
 		}
+		recorder.record(device.getID(), s, d, c, t);
 	}
 
-	// /**
-	// *	Include a device in the record list
-	// */
-	// public static void registerDevice(Device device){
-	// 	if (!diskHList.contains(device)) {
-	// 		diskHList.put(device, new GenericList());
-	// 	}
-	// }
-
-	private Boolean isSaving = false;
 	/**
-	*	Insert head movement record
+	*	Insert the trace record of a completed IORB
 	*/
-	public void inputHeadStat(
-		final int s, final int d, 
-		final long c, final long t){
-		// GenericList headList = diskHList.get(device);
-		// if (headList == null) {
-		// 	registerDevice(device);
-		// 	headList = diskHList.get(device);
-		// }
-		// headList.append(hstat);
-		diskHList.append(new HeadStat(s,d,t));
+	public void inputCompletion(IORB iorb){
+		if (iorb.enqueueTime != null && iorb.dequeueTime != null) {
+			waitTime.record(iorb.dequeueTime - iorb.enqueueTime);
+		}
+		if (iorb.dequeueTime != null && iorb.finishTime != null) {
+			serviceTime.record(iorb.finishTime - iorb.dequeueTime);
+		}
+		if (trace == null) {
+			return;
+		}
+		TaskCB task = iorb.getThread().getTask();
+		trace.write(HClock.get(),
+			iorb.sourceCylinder, iorb.getCylinder(), iorb.getBlockNumber(),
+			iorb.getIOType(), task == null ? -1 : task.getID(),
+			1,
+			time(iorb.createTime), time(iorb.enqueueTime),
+			time(iorb.dequeueTime), time(iorb.finishTime));
+	}
 
-		new Thread(new Runnable(){
-			public void run(){
-				synchronized (isSaving){
-					if (!isSaving) {
-					if (!isSaving) {
-						isSaving = true;
-						try {
-							FileWriter fw = new FileWriter("headRecord" + device + ".txt", true);
-							fw.write("[" + t + "]: " + s + "-" + d + 
-								"\tIORB created: " + c + "\r\n");
-							fw.close();
-						} catch (IOException ioe){
-							System.err.println("IOException: " + ioe.getMessage());
-						}
-						isSaving = false;
-					}}
-				}
+	/**
+	*	Append the latency percentiles so far to latency<device>.txt
+	*/
+	synchronized public void report(String when){
+		try {
+			FileWriter out = new FileWriter("latency" + device + ".txt", true);
+			out.write("[" + when + "]\r\n");
+			out.write("\tqueue wait:   " + waitTime + "\r\n");
+			out.write("\tservice time: " + serviceTime + "\r\n");
+			if (device.getAnticipationHits() + device.getAnticipationMisses() > 0) {
+				out.write("\tanticipation: hits=" + device.getAnticipationHits() +
+					" misses=" + device.getAnticipationMisses() +
+					" idle=" + device.getAnticipationIdleTicks() + "\r\n");
 			}
-		}).start();
+			out.close();
+		} catch (IOException ioe){
+			System.err.println("IOException: " + ioe.getMessage());
+		}
+	}
+
+	private static long time(Long t){
+		return t == null ? -1 : t;
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,25 @@
+package osp.Devices;
+
+import osp.IFLModules.*;
+import osp.Threads.*;
+import osp.Utilities.*;
+import osp.Hardware.*;
+
+/**
+*	This class runs in background and periodically reports the latency
+*	statistics of every device
+*/
+class StatsDaemon implements DaemonInterface{
+	/**
+	*	This method will be repeatedly called, once per snapshot interval
+	*/
+	public void unleash(ThreadCB thread){
+		MyOut.print(thread, "Report device statistics.");
+		for (int i = 0; i < Device.getTableSize(); i++) {
+			Device device = Device.get(i);
+			if (device != null) {
+				device.reportStats("clock " + HClock.get());
+			}
+		}
+	}
+}
@@ -0,0 +1,119 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Utilities.*;
+
+/**
+*   Striping of the swap device over several disks.
+*
+*   With "SwapStripe 0,1,2" in params.osp, block b of the swap device
+*   is in stripe unit b / SwapStripeBlocks, and units go round-robin over
+*   the member devices. Each member keeps a swap region at the end of
+*   the disk, large enough for its share of the swap device, and its
+*   units are packed one after the other there. An IORB on the swap
+*   device is mapped when it is built, so the member disk computes its
+*   own cylinder and page faults can be served by several disks at
+*   once. A block that does not fit on its member stays on the swap
+*   device. Without the key nothing is mapped.
+*
+*   The regions are not reserved: OSP's file system allocates blocks on
+*   its own, and the block count of a device cannot be lowered, so files
+*   may be given blocks of a member's swap region. The simulation keeps
+*   no data, so only the timing is affected, but striping is off unless
+*   asked for and warns when it is on.
+*/
+public class SwapStriping{
+    private static int[] members;
+    private static int unit;
+
+    /**
+    *   Device of a block after striping
+    */
+    public static int device(int deviceID, int block){
+        if (!striped(deviceID)) {
+            return deviceID;
+        }
+        int member = member(block);
+        if (regionOffset(block) >= regionSize(member)) {
+            return deviceID;
+        }
+        return member;
+    }
+
+    /**
+    *   Block number on the device returned by device()
+    */
+    public static int block(int deviceID, int block){
+        if (device(deviceID, block) == deviceID) {
+            return block;
+        }
+        int member = member(block);
+        return regionStart(member) + regionOffset(block);
+    }
+
+    public static boolean isEnabled(){
+        load();
+        return members.length > 1;
+    }
+
+    private static boolean striped(int deviceID){
+        return deviceID == GlobalVariables.SwapDeviceID && isEnabled();
+    }
+
+    private static int member(int block){
+        return members[(block / unit) % members.length];
+    }
+
+    /**
+    *   Position of a swap block within the region of its member
+    */
+    private static int regionOffset(int block){
+        int stripe = block / unit;
+        return (stripe / members.length) * unit + block % unit;
+    }
+
+    /**
+    *   Blocks a member sets aside: its share of the stripe units of the
+    *   whole swap device, or the whole member if it is smaller
+    */
+    private static int regionSize(int deviceID){
+        int units = (capacity(GlobalVariables.SwapDeviceID) + unit - 1) / unit;
+        int share = (units + members.length - 1) / members.length * unit;
+        return Math.min(share, capacity(deviceID));
+    }
+
+    private static int regionStart(int deviceID){
+        return capacity(deviceID) - regionSize(deviceID);
+    }
+
+    private static int capacity(int deviceID){
+        Device device = Device.get(deviceID);
+        return device == null ? 0 : device.getNumberOfBlocks();
+    }
+
+    synchronized private static void load(){
+        if (members != null) {
+            return;
+        }
+        unit = Math.max(DeviceParams.getInt("SwapStripeBlocks", 4), 1);
+        ArrayList<Integer> ids = new ArrayList<Integer>();
+        StringTokenizer tokens = new StringTokenizer(
+            DeviceParams.getString("SwapStripe", ""), ", ");
+        while (tokens.hasMoreTokens()) {
+            String token = tokens.nextToken();
+            try {
+                ids.add(Integer.parseInt(token));
+            } catch (NumberFormatException e){
+                MyOut.warning("SwapStriping", "SwapStripe member is not a device: " + token);
+            }
+        }
+        members = new int[ids.size()];
+        for (int i = 0; i < members.length; i++) {
+            members[i] = ids.get(i);
+        }
+        if (members.length > 1) {
+            MyOut.warning("SwapStriping", "Swap regions on the member devices " +
+                "are not reserved, files may share their blocks");
+        }
+    }
+}
@@ -0,0 +1,172 @@
+package osp.Devices;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import osp.Utilities.*;
+
+/**
+*	Reader of the binary trace written by TraceWriter.
+*
+*	Records are read one at a time into a reused Record through a small
+*	buffer, so a trace of any length is read in constant memory. Run as
+*
+*	   java osp.Devices.TraceReader traceDevice(0).bin ...
+*
+*	to print summary statistics of each trace.
+*/
+public class TraceReader{
+	private static final int BufferSize = TraceWriter.RecordSize * 1024;
+
+	/**
+	*	One trace record, see TraceWriter for the fields
+	*/
+	public static class Record{
+		public long clock;
+		public int src;
+		public int dest;
+		public int block;
+		public int ioType;
+		public int task;
+		public int blocks;
+		public long create;
+		public long enqueue;
+		public long dequeue;
+		public long finish;
+	}
+
+	private FileChannel channel;
+	private ByteBuffer buffer;
+	private int deviceID;
+
+	public TraceReader(String filename) throws IOException{
+		channel = new FileInputStream(filename).getChannel();
+		buffer = ByteBuffer.allocate(BufferSize);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		buffer.flip();
+		if (!fill(TraceWriter.HeaderSize)) {
+			throw new IOException(filename + ": no trace header");
+		}
+		int magic = buffer.getInt();
+		int version = buffer.getInt();
+		int recordSize = buffer.getInt();
+		deviceID = buffer.getInt();
+		if (magic != TraceWriter.Magic || version != TraceWriter.Version ||
+			recordSize != TraceWriter.RecordSize) {
+			throw new IOException(filename + ": not a version " +
+				TraceWriter.Version + " trace");
+		}
+	}
+
+	public int getDeviceID(){
+		return deviceID;
+	}
+
+	/**
+	*	Read the next record into r
+	*	@return false at the end of the trace
+	*/
+	public boolean next(Record r) throws IOException{
+		if (!fill(TraceWriter.RecordSize)) {
+			return false;
+		}
+		r.clock = buffer.getLong();
+		r.src = buffer.getInt();
+		r.dest = buffer.getInt();
+		r.block = buffer.getInt();
+		r.ioType = buffer.getInt();
+		r.task = buffer.getInt();
+		r.blocks = buffer.getInt();
+		r.create = buffer.getLong();
+		r.enqueue = buffer.getLong();
+		r.dequeue = buffer.getLong();
+		r.finish = buffer.getLong();
+		return true;
+	}
+
+	public void close() throws IOException{
+		channel.close();
+	}
+
+	/**
+	*	Make sure n bytes are buffered
+	*	@return false if the file ends first
+	*/
+	private boolean fill(int n) throws IOException{
+		if (buffer.remaining() >= n) {
+			return true;
+		}
+		buffer.compact();
+		while (buffer.position() < n) {
+			if (channel.read(buffer) < 0) {
+				break;
+			}
+		}
+		buffer.flip();
+		return buffer.remaining() >= n;
+	}
+
+	/**
+	*	Print the summary statistics of the given trace files
+	*/
+	public static void main(String[] args){
+		if (args.length == 0) {
+			System.err.println("Usage: java osp.Devices.TraceReader <trace file> ...");
+			return;
+		}
+		for (String filename : args) {
+			try {
+				summarize(filename);
+			} catch (IOException ioe){
+				System.err.println("IOException: " + ioe.getMessage());
+			}
+		}
+	}
+
+	private static void summarize(String filename) throws IOException{
+		TraceReader reader = new TraceReader(filename);
+		Record r = new Record();
+		long count = 0, reads = 0, blocks = 0, travel = 0;
+		long waitSum = 0, serviceSum = 0, responseSum = 0;
+		long waitMax = 0, serviceMax = 0, responseMax = 0;
+		long first = -1, last = -1;
+		while (reader.next(r)) {
+			count++;
+			if (r.ioType == GlobalVariables.FileRead) {
+				reads++;
+			}
+			blocks += r.blocks;
+			travel += Math.abs(r.dest - r.src);
+			long wait = r.dequeue - r.enqueue;
+			long service = r.finish - r.dequeue;
+			long response = r.finish - r.create;
+			waitSum += wait;
+			serviceSum += service;
+			responseSum += response;
+			waitMax = Math.max(waitMax, wait);
+			serviceMax = Math.max(serviceMax, service);
+			responseMax = Math.max(responseMax, response);
+			if (first < 0) {
+				first = r.clock;
+			}
+			last = r.clock;
+		}
+		reader.close();
+
+		System.out.println(filename + " (device " + reader.getDeviceID() + ")");
+		System.out.println("\tIORBs: " + count + " (" + reads + " reads, " +
+			(count - reads) + " writes), blocks: " + blocks);
+		if (count == 0) {
+			return;
+		}
+		System.out.println("\tclock: " + first + " - " + last);
+		System.out.println("\thead travel: " + travel + " cylinders, " +
+			(double)travel / count + " per IORB");
+		System.out.println("\tqueue wait: mean " + (double)waitSum / count +
+			", max " + waitMax);
+		System.out.println("\tservice time: mean " + (double)serviceSum / count +
+			", max " + serviceMax);
+		System.out.println("\tresponse time: mean " + (double)responseSum / count +
+			", max " + responseMax);
+	}
+}
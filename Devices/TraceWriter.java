@@ -0,0 +1,114 @@
+package osp.Devices;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+/**
+*	Binary trace of the completed IORBs of one device.
+*
+*	The file starts with a header (magic, version, record size, device
+*	ID, all ints) followed by fixed-width little endian records:
+*
+*	   long clock       time the record was written
+*	   int  src         head cylinder when the IORB was dequeued
+*	   int  dest        cylinder of the IORB
+*	   int  block       block number
+*	   int  ioType      FileRead or FileWrite
+*	   int  task        ID of the requesting task
+*	   int  blocks      blocks transferred, always 1
+*	   long create, enqueue, dequeue, finish
+*
+*	Records are appended through a memory-mapped window that moves
+*	forward by Window bytes when full; the unused tail is cut off when
+*	the trace is closed. TraceReader reads the file back.
+*/
+public class TraceWriter{
+	public static final int Magic = 0x4f535054;
+	public static final int Version = 1;
+	public static final int HeaderSize = 16;
+	public static final int RecordSize = 64;
+	private static final int Window = RecordSize * 16384;
+
+	private RandomAccessFile file;
+	private FileChannel channel;
+	private MappedByteBuffer map;
+	/**
+	*	File offset of the mapped window
+	*/
+	private long mapStart;
+	private boolean closed = false;
+
+	public TraceWriter(String filename, int deviceID) throws IOException{
+		file = new RandomAccessFile(filename, "rw");
+		file.setLength(0);
+		channel = file.getChannel();
+		mapStart = 0;
+		remap();
+		map.putInt(Magic);
+		map.putInt(Version);
+		map.putInt(RecordSize);
+		map.putInt(deviceID);
+		Runtime.getRuntime().addShutdownHook(new Thread(){
+			public void run(){
+				close();
+			}
+		});
+	}
+
+	/**
+	*	Append the record of a completed IORB
+	*/
+	synchronized public void write(long clock, int src, int dest, int block,
+		int ioType, int task, int blocks,
+		long create, long enqueue, long dequeue, long finish){
+		if (closed) {
+			return;
+		}
+		try {
+			if (map.remaining() < RecordSize) {
+				mapStart += map.position();
+				remap();
+			}
+		} catch (IOException ioe){
+			System.err.println("IOException: " + ioe.getMessage());
+			closed = true;
+			return;
+		}
+		map.putLong(clock);
+		map.putInt(src);
+		map.putInt(dest);
+		map.putInt(block);
+		map.putInt(ioType);
+		map.putInt(task);
+		map.putInt(blocks);
+		map.putLong(create);
+		map.putLong(enqueue);
+		map.putLong(dequeue);
+		map.putLong(finish);
+	}
+
+	/**
+	*	Cut the file to the written records and close it
+	*/
+	synchronized public void close(){
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			long length = mapStart + map.position();
+			map.force();
+			map = null;
+			file.setLength(length);
+			channel.close();
+		} catch (IOException ioe){
+			System.err.println("IOException: " + ioe.getMessage());
+		}
+	}
+
+	private void remap() throws IOException{
+		map = channel.map(FileChannel.MapMode.READ_WRITE, mapStart, Window);
+		map.order(ByteOrder.LITTLE_ENDIAN);
+	}
+}
@@ -0,0 +1,518 @@
+package osp.Devices;
+
+import java.io.*;
+import java.util.*;
+import osp.Hardware.*;
+import osp.Threads.ThreadCB;
+import osp.Tasks.TaskCB;
+import osp.Utilities.*;
+
+/**
+*   Microbenchmarks of the IORB queue operations of the scheduling
+*   policies and of the block to cylinder mapping.
+*
+*   IORBQueue hands every request to the DiskSchedulingPolicy of the
+*   device, and keeps PendingIndex up to date. Both are measured
+*   directly, compiled against the stand-in classes of ../replay as in
+*   DiskReplay, and called in the order IORBQueue calls them. The queue
+*   is held at a fixed depth while it is measured:
+*
+*      enqueue      ns to add one IORB to a queue of the given depth
+*      dequeue      ns to select and remove one IORB, the head follows
+*      cancel       ns to cancel all IORBs of one thread, the requests
+*                   being spread over -threads threads, looked up in
+*                   PendingIndex as cancelPendingIO does
+*      cylinder     ns for DiskGeometry.cylinder(), i.e. computeCylinder
+*                   without the log messages
+*
+*   The cylinders are uniform over the disk, or clustered: 90% of them
+*   in 8 hot bands of 0.5% of the disk each. As in JMH, every benchmark
+*   runs -warmup iterations that are thrown away and -iterations that are
+*   kept, of -time ms each, and the score is the mean of the iterations
+*   with its 99.9% confidence interval. The results are written as CSV
+*   in the column layout of JMH (-out, default stdout).
+*
+*   With -baseline the results are compared to an earlier CSV, and the
+*   exit status is 1 if a score got slower by more than -tolerance
+*   percent and the confidence intervals of the two runs do not
+*   overlap.
+*/
+public class QueueBench{
+    private static final String[] Benchmarks = {"enqueue", "dequeue", "cancel", "cylinder"};
+
+    private String[] policies = {"FIFO", "CSCAN", "SSTF", "FSCAN"};
+    private int[] depths = {8, 64, 512, 4096, 32768, 100000};
+    private String[] distributions = {"uniform", "clustered"};
+    private String[] benchmarks = Benchmarks;
+    private int warmup = 5;
+    private int iterations = 5;
+    private int time = 300;
+    private int tracks = 2000;
+    private int threadCount = 64;
+    private long seed = 42;
+    private String out = null;
+    private String baseline = null;
+    private int tolerance = 10;
+
+    /**
+    *   Timer cost of one System.nanoTime() pair, taken off the batches
+    */
+    private double timerCost;
+    private Disk disk;
+    private ThreadCB[] threads;
+    private ArrayList<String[]> results = new ArrayList<String[]>();
+
+    /**
+    *   Keeps the JIT from dropping results
+    */
+    public static volatile long sink;
+
+    public static void main(String[] args){
+        QueueBench bench = new QueueBench();
+        try {
+            bench.parse(args);
+        } catch (IllegalArgumentException e){
+            System.err.println(e.getMessage());
+            System.err.println("Usage: java osp.Devices.QueueBench [-bench enqueue,dequeue,cancel,cylinder] " +
+                "[-policy FIFO,CSCAN,SSTF,FSCAN] [-depth 8,64,...] [-dist uniform,clustered] " +
+                "[-warmup n] [-iterations n] [-time ms] [-tracks n] [-threads n] [-seed n] " +
+                "[-out file.csv] [-baseline file.csv] [-tolerance percent]");
+            System.exit(2);
+        }
+        bench.run();
+        try {
+            bench.write();
+        } catch (IOException ioe){
+            System.err.println("IOException: " + ioe.getMessage());
+            System.exit(2);
+        }
+        if (bench.baseline != null) {
+            try {
+                if (!bench.compare()) {
+                    System.exit(1);
+                }
+            } catch (IOException ioe){
+                System.err.println("IOException: " + ioe.getMessage());
+                System.exit(2);
+            }
+        }
+    }
+
+    private void parse(String[] args){
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("-") || i + 1 >= args.length) {
+                throw new IllegalArgumentException("Unknown argument: " + args[i]);
+            }
+            String key = args[i].substring(1);
+            String value = args[++i];
+            try {
+                if (key.equals("bench")) {
+                    benchmarks = value.split(",");
+                } else if (key.equals("policy")) {
+                    policies = value.split(",");
+                } else if (key.equals("dist")) {
+                    distributions = value.split(",");
+                } else if (key.equals("depth")) {
+                    String[] list = value.split(",");
+                    depths = new int[list.length];
+                    for (int j = 0; j < list.length; j++) {
+                        depths[j] = Math.max(Integer.parseInt(list[j].trim()), 1);
+                    }
+                } else if (key.equals("warmup")) {
+                    warmup = Integer.parseInt(value);
+                } else if (key.equals("iterations")) {
+                    iterations = Math.max(Integer.parseInt(value), 1);
+                } else if (key.equals("time")) {
+                    time = Math.max(Integer.parseInt(value), 1);
+                } else if (key.equals("tracks")) {
+                    tracks = Math.max(Integer.parseInt(value), 1);
+                } else if (key.equals("threads")) {
+                    threadCount = Math.max(Integer.parseInt(value), 1);
+                } else if (key.equals("seed")) {
+                    seed = Long.parseLong(value);
+                } else if (key.equals("out")) {
+                    out = value;
+                } else if (key.equals("baseline")) {
+                    baseline = value;
+                } else if (key.equals("tolerance")) {
+                    tolerance = Integer.parseInt(value);
+                } else{
+                    throw new IllegalArgumentException("Unknown option: " + args[i - 1]);
+                }
+            } catch (NumberFormatException e){
+                throw new IllegalArgumentException("Not a number: " + args[i - 1] + " " + value);
+            }
+        }
+    }
+
+    private void run(){
+        disk = new Disk(tracks, 8, 5, 15);
+        threads = new ThreadCB[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new ThreadCB(new TaskCB(i));
+        }
+        timerCost = timerCost();
+        for (String benchmark : benchmarks) {
+            benchmark = benchmark.trim();
+            for (String distribution : distributions) {
+                distribution = distribution.trim();
+                if (benchmark.equals("cylinder")) {
+                    measure(benchmark, null, distribution, 0);
+                    continue;
+                }
+                for (String policy : policies) {
+                    for (int depth : depths) {
+                        measure(benchmark, policy.trim(), distribution, depth);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+    *   Run the warmup and measured iterations of one benchmark and keep
+    *   its result line
+    */
+    private void measure(String benchmark, String policy, String distribution, int depth){
+        Workload workload = new Workload(distribution, Math.max(2 * depth, 1 << 16));
+        double[] scores = new double[iterations];
+        for (int i = -warmup; i < iterations; i++) {
+            double score;
+            if (benchmark.equals("enqueue")) {
+                score = queueIteration(policy, workload, depth, true);
+            } else if (benchmark.equals("dequeue")) {
+                score = queueIteration(policy, workload, depth, false);
+            } else if (benchmark.equals("cancel")) {
+                score = cancelIteration(policy, workload, depth);
+            } else if (benchmark.equals("cylinder")) {
+                score = cylinderIteration(workload);
+            } else{
+                throw new IllegalArgumentException("Unknown benchmark: " + benchmark);
+            }
+            if (i >= 0) {
+                scores[i] = score;
+            }
+        }
+        double mean = 0;
+        for (double score : scores) {
+            mean += score;
+        }
+        mean /= iterations;
+        double variance = 0;
+        for (double score : scores) {
+            variance += (score - mean) * (score - mean);
+        }
+        double error = iterations < 2 ? Double.NaN :
+            studentT(iterations - 1) * Math.sqrt(variance / (iterations - 1)) / Math.sqrt(iterations);
+        String[] line = {
+            "QueueBench." + benchmark, "avgt", "1", String.valueOf(iterations),
+            String.format(Locale.ROOT, "%.3f", mean),
+            Double.isNaN(error) ? "NaN" : String.format(Locale.ROOT, "%.3f", error),
+            "ns/op",
+            policy == null ? "" : policy, distribution, depth == 0 ? "" : String.valueOf(depth)
+        };
+        results.add(line);
+        System.err.println(String.format(Locale.ROOT, "%-20s %-8s %-10s %7s %12.1f +- %.1f ns/op",
+            line[0], line[7], line[8], line[9], mean, Double.isNaN(error) ? 0 : error));
+    }
+
+    /**
+    *   One iteration of enqueue or dequeue. Batches of IORBs are added
+    *   to and taken from a queue of the given depth, only one of the
+    *   two is timed.
+    */
+    private double queueIteration(String name, Workload workload, int depth, boolean timeEnqueue){
+        DiskSchedulingPolicy policy = Policies.create(0, name);
+        Pool pool = new Pool(depth + Math.min(depth, 256), workload);
+        fill(policy, pool, depth);
+        int batch = Math.min(depth, 256);
+        long elapsed = 0;
+        long ops = 0;
+        long batches = 0;
+        long end = System.nanoTime() + time * 1000000L;
+        while (System.nanoTime() < end) {
+            long start = System.nanoTime();
+            if (timeEnqueue) {
+                for (int i = 0; i < batch; i++) {
+                    policy.enqueue(pool.take());
+                }
+                elapsed += System.nanoTime() - start;
+                for (int i = 0; i < batch; i++) {
+                    pool.give(next(policy));
+                }
+            } else{
+                for (int i = 0; i < batch; i++) {
+                    policy.enqueue(pool.take());
+                }
+                start = System.nanoTime();
+                for (int i = 0; i < batch; i++) {
+                    pool.give(next(policy));
+                }
+                elapsed += System.nanoTime() - start;
+            }
+            ops += batch;
+            batches++;
+        }
+        sink += policy.size();
+        return Math.max(elapsed - batches * timerCost, 0) / ops;
+    }
+
+    /**
+    *   One iteration of cancel: the queue is filled to the given depth,
+    *   then every thread cancels its IORBs in random order, the way
+    *   IORBQueue.cancelPendingIO does
+    */
+    private double cancelIteration(String name, Workload workload, int depth){
+        DiskSchedulingPolicy policy = Policies.create(0, name);
+        Pool pool = new Pool(depth, workload);
+        Random random = new Random(seed);
+        ThreadCB[] order = threads.clone();
+        long elapsed = 0;
+        long ops = 0;
+        long end = System.nanoTime() + time * 1000000L;
+        while (System.nanoTime() < end) {
+            while (policy.size() < depth) {
+                IORB iorb = pool.take();
+                policy.enqueue(iorb);
+                PendingIndex.add(iorb);
+            }
+            Collections.shuffle(Arrays.asList(order), random);
+            long removed = 0;
+            long start = System.nanoTime();
+            for (ThreadCB thread : order) {
+                if (PendingIndex.ofThread(thread, 0).isEmpty()) {
+                    continue;
+                }
+                for (IORB iorb : policy.cancel(thread)) {
+                    PendingIndex.remove(iorb);
+                    removed++;
+                }
+            }
+            elapsed += System.nanoTime() - start;
+            ops += order.length;
+            if (removed != depth || !policy.isEmpty()) {
+                MyOut.error(policy.getName(), "cancel removed " + removed + " of " + depth);
+            }
+            pool.reset();
+        }
+        return Math.max(elapsed - (ops / order.length) * timerCost, 0) / ops;
+    }
+
+    /**
+    *   One iteration of the block to cylinder mapping
+    */
+    private double cylinderIteration(Workload workload){
+        //512 byte blocks on a disk of 8 sectors of 512 bytes and 4 platters
+        DiskGeometry geometry = new DiskGeometry(512, 512, 8, tracks, 4);
+        int[] blocks = new int[workload.cylinders.length];
+        Random random = new Random(seed);
+        for (int i = 0; i < blocks.length; i++) {
+            int platter = random.nextInt(geometry.getPlatters());
+            blocks[i] = platter * geometry.getBlocksPerPlatter() +
+                workload.cylinders[i] * geometry.getBlocksPerTrack() +
+                random.nextInt(geometry.getBlocksPerTrack());
+        }
+        long elapsed = 0;
+        long ops = 0;
+        long sum = 0;
+        long end = System.nanoTime() + time * 1000000L;
+        while (System.nanoTime() < end) {
+            long start = System.nanoTime();
+            for (int i = 0; i < blocks.length; i++) {
+                sum += geometry.cylinder(blocks[i]);
+            }
+            elapsed += System.nanoTime() - start;
+            ops += blocks.length;
+        }
+        sink += sum;
+        return (double)elapsed / ops;
+    }
+
+    private void fill(DiskSchedulingPolicy policy, Pool pool, int depth){
+        while (policy.size() < depth) {
+            policy.enqueue(pool.take());
+        }
+    }
+
+    /**
+    *   Dequeue like the device does and move the head to the request
+    */
+    private IORB next(DiskSchedulingPolicy policy){
+        IORB iorb = policy.dequeue(disk);
+        disk.setHeadPosition(iorb.getCylinder());
+        return iorb;
+    }
+
+    /**
+    *   Cost of taking the time around a batch
+    */
+    private static double timerCost(){
+        long total = 0;
+        int rounds = 1 << 20;
+        for (int i = 0; i < rounds; i++) {
+            long start = System.nanoTime();
+            total += System.nanoTime() - start;
+        }
+        return (double)total / rounds;
+    }
+
+    /**
+    *   Two-sided 99.9% quantile of the Student t distribution
+    */
+    private static double studentT(int df){
+        double[] table = {636.62, 31.60, 12.92, 8.61, 6.87, 5.96, 5.41, 5.04, 4.78, 4.59};
+        if (df <= table.length) {
+            return table[df - 1];
+        }
+        if (df <= 15) {
+            return 4.07;
+        }
+        if (df <= 20) {
+            return 3.85;
+        }
+        if (df <= 30) {
+            return 3.65;
+        }
+        return 3.29;
+    }
+
+    private void write() throws IOException{
+        PrintStream stream = out == null ? System.out : new PrintStream(new FileOutputStream(out));
+        stream.println("\"Benchmark\",\"Mode\",\"Threads\",\"Samples\",\"Score\"," +
+            "\"Score Error (99.9%)\",\"Unit\",\"Param: policy\",\"Param: distribution\",\"Param: depth\"");
+        for (String[] line : results) {
+            stream.println("\"" + line[0] + "\",\"" + line[1] + "\"," + line[2] + "," + line[3] + "," +
+                line[4] + "," + line[5] + ",\"" + line[6] + "\"," + line[7] + "," + line[8] + "," + line[9]);
+        }
+        if (stream != System.out) {
+            stream.close();
+        }
+    }
+
+    /**
+    *   Compare with the baseline CSV, true if nothing got slower
+    */
+    private boolean compare() throws IOException{
+        HashMap<String, double[]> old = new HashMap<String, double[]>();
+        BufferedReader reader = new BufferedReader(new FileReader(baseline));
+        reader.readLine();
+        String row;
+        while ((row = reader.readLine()) != null) {
+            String[] fields = row.replace("\"", "").split(",", -1);
+            if (fields.length < 10) {
+                continue;
+            }
+            old.put(key(fields), new double[] {
+                Double.parseDouble(fields[4]), parseError(fields[5])
+            });
+        }
+        reader.close();
+        boolean ok = true;
+        for (String[] line : results) {
+            double[] before = old.get(key(line));
+            if (before == null) {
+                continue;
+            }
+            double score = Double.parseDouble(line[4]);
+            double error = parseError(line[5]);
+            double change = (score - before[0]) / before[0] * 100;
+            boolean slower = change > tolerance && score - error > before[0] + before[1];
+            System.err.println(String.format(Locale.ROOT, "%s %-20s %-8s %-10s %7s %10.1f -> %10.1f ns/op %+6.1f%%",
+                slower ? "REGRESSION" : "ok        ", line[0], line[7], line[8], line[9],
+                before[0], score, change));
+            ok &= !slower;
+        }
+        return ok;
+    }
+
+    private static String key(String[] fields){
+        return fields[0] + "," + fields[7] + "," + fields[8] + "," + fields[9];
+    }
+
+    private static double parseError(String value){
+        double error = Double.parseDouble(value);
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    /**
+    *   A reproducible sequence of cylinders
+    */
+    private class Workload{
+        int[] cylinders;
+
+        Workload(String distribution, int size){
+            Random random = new Random(seed);
+            cylinders = new int[size];
+            if (distribution.equals("uniform")) {
+                for (int i = 0; i < size; i++) {
+                    cylinders[i] = random.nextInt(tracks);
+                }
+            } else if (distribution.equals("clustered")) {
+                int width = Math.max(tracks / 200, 1);
+                int[] bands = new int[8];
+                for (int i = 0; i < bands.length; i++) {
+                    bands[i] = random.nextInt(Math.max(tracks - width, 1));
+                }
+                for (int i = 0; i < size; i++) {
+                    if (random.nextInt(10) < 9) {
+                        cylinders[i] = Math.min(bands[random.nextInt(bands.length)] +
+                            random.nextInt(width), tracks - 1);
+                    } else{
+                        cylinders[i] = random.nextInt(tracks);
+                    }
+                }
+            } else{
+                throw new IllegalArgumentException("Unknown distribution: " + distribution);
+            }
+        }
+    }
+
+    /**
+    *   IORBs made before the measurement and reused, so the benchmarks
+    *   do not time their allocation. A reused IORB gets the next
+    *   cylinder of the workload.
+    */
+    private class Pool{
+        private IORB[] free;
+        private int top;
+        private IORB[] all;
+        private Workload workload;
+        private int nextCylinder = 0;
+        private long clock = 0;
+
+        Pool(int size, Workload workload){
+            this.workload = workload;
+            free = new IORB[size];
+            all = new IORB[size];
+            for (int i = 0; i < size; i++) {
+                IORB iorb = new IORB(threads[i % threads.length], i,
+                    GlobalVariables.FileRead, IORB.FileIO);
+                all[i] = iorb;
+                free[i] = iorb;
+            }
+            top = size;
+        }
+
+        IORB take(){
+            IORB iorb = free[--top];
+            iorb.setCylinder(workload.cylinders[nextCylinder]);
+            nextCylinder = (nextCylinder + 1) % workload.cylinders.length;
+            iorb.enqueueTime = clock;
+            iorb.createTime = clock;
+            clock++;
+            return iorb;
+        }
+
+        void give(IORB iorb){
+            free[top++] = iorb;
+        }
+
+        /**
+        *   Everything back after the queue was emptied by cancel
+        */
+        void reset(){
+            System.arraycopy(all, 0, free, 0, all.length);
+            top = all.length;
+        }
+    }
+}
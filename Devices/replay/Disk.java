@@ -0,0 +1,40 @@
+package osp.Hardware;
+
+/**
+*   Replay stand-in for the Disk of OSP: the geometry and head position
+*   the scheduling policies read.
+*/
+public class Disk{
+    private int tracksPerPlatter;
+    private int sectorsPerTrack;
+    private int revsPerTick;
+    private int seekTimePerCylinder;
+    private int headPosition = 0;
+
+    public Disk(int tracksPerPlatter, int sectorsPerTrack, 
+        int revsPerTick, int seekTimePerCylinder){
+        this.tracksPerPlatter = tracksPerPlatter;
+        this.sectorsPerTrack = sectorsPerTrack;
+        this.revsPerTick = revsPerTick;
+        this.seekTimePerCylinder = seekTimePerCylinder;
+    }
+
+    public int getTracksPerPlatter(){
+        return tracksPerPlatter;
+    }
+    public int getSectorsPerTrack(){
+        return sectorsPerTrack;
+    }
+    public int getRevsPerTick(){
+        return revsPerTick;
+    }
+    public int getSeekTimePerCylinder(){
+        return seekTimePerCylinder;
+    }
+    public int getHeadPosition(){
+        return headPosition;
+    }
+    public void setHeadPosition(int headPosition){
+        this.headPosition = headPosition;
+    }
+}
@@ -0,0 +1,381 @@
+package osp.Devices;
+
+import java.io.*;
+import java.util.*;
+import osp.Hardware.*;
+import osp.Threads.ThreadCB;
+import osp.Tasks.TaskCB;
+import osp.Utilities.*;
+
+/**
+*   Offline replay of a recorded trace against the disk scheduling
+*   policies.
+*
+*   The IORB arrivals of a trace written by TraceWriter (create time,
+*   cylinder, block, I/O type, task) are fed, in create time order,
+*   through each policy as built by Policies, against a modelled disk.
+*   Serving an IORB takes the seek (SeekTimePerCylinder per cylinder),
+*   the rotational wait until its first sector comes around (RotationTime,
+*   same model as SATFPolicy) and a fixed transfer time. The sector of a
+*   block comes from DiskGeometry, as in the device. Every policy sees the same workload, and the response time
+*   (finish - create), queue wait and head travel are reported.
+*
+*   The policies are compiled together with the stand-in classes of this
+*   directory instead of OSP.jar, see the Makefile. Run as
+*
+*      java osp.Devices.DiskReplay [options] <trace file>
+*
+*   -policy FIFO,SSTF,...   policies to replay, default all
+*   -tracks, -sectors, -revs, -seek, -transfer, -rotation   disk model,
+*                           default DiskN... of params.osp for the
+*                           traced device
+*   -platters, -bytesPerSector, -blockSize   block layout, by default
+*                           one block per sector on one platter
+*   -paramFile file         params.osp with the policy settings
+*   -verbose                print the log messages of the policies
+*/
+public class DiskReplay{
+    private static final String[] AllPolicies = {
+        "FIFO", "CSCAN", "SSTF", "FSCAN", "LOOK",
+        "SATF", "DEADLINE", "CFQ", "ADAPTIVE"
+    };
+
+    /**
+    *   The arrivals, sorted by create time
+    */
+    private int count;
+    private long[] creates;
+    private int[] cylinders;
+    private int[] blocks;
+    private int[] ioTypes;
+    private int[] tasks;
+    private int deviceID;
+
+    private int tracks;
+    private int sectors;
+    private int revs;
+    private int seek;
+    private int transfer;
+    private double rotation;
+    private DiskGeometry geometry;
+
+    public static void main(String[] args){
+        String filename = null;
+        String policies = null;
+        HashMap<String, Integer> options = new HashMap<String, Integer>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("-policy") && i + 1 < args.length) {
+                policies = args[++i];
+            } else if (args[i].equals("-paramFile") && i + 1 < args.length) {
+                DeviceParams.setParamFile(args[++i]);
+            } else if (args[i].equals("-verbose")) {
+                MyOut.verbose = true;
+            } else if (args[i].startsWith("-") && i + 1 < args.length) {
+                try {
+                    options.put(args[i].substring(1), Integer.parseInt(args[i + 1]));
+                } catch (NumberFormatException e){
+                    System.err.println("Not a number: " + args[i] + " " + args[i + 1]);
+                    return;
+                }
+                i++;
+            } else{
+                filename = args[i];
+            }
+        }
+        if (filename == null) {
+            System.err.println("Usage: java osp.Devices.DiskReplay [-policy FIFO,SSTF,...] " +
+                "[-tracks n] [-sectors n] [-revs n] [-seek n] [-transfer n] [-rotation n] " +
+                "[-platters n] [-bytesPerSector n] [-blockSize n] " +
+                "[-paramFile file] [-verbose] <trace file>");
+            return;
+        }
+        DiskReplay replay = new DiskReplay();
+        try {
+            replay.load(filename);
+        } catch (IOException ioe){
+            System.err.println("IOException: " + ioe.getMessage());
+            return;
+        }
+        replay.configure(options);
+        String[] names = policies == null ? AllPolicies : policies.split(",");
+        System.out.println(filename + ": " + replay.count + " IORBs on device " +
+            replay.deviceID + ", " + replay.tracks + " cylinders, seek " +
+            replay.seek + ", rotation " + replay.rotation + ", transfer " + replay.transfer);
+        System.out.println(String.format("%-18s %12s %10s %10s %10s %10s %12s %8s",
+            "policy", "finish", "mean RT", "p99 RT", "max RT", "mean wait",
+            "head travel", "ms"));
+        for (String name : names) {
+            replay.run(name.trim());
+        }
+    }
+
+    DiskReplay(){
+        creates = new long[1024];
+        cylinders = new int[1024];
+        blocks = new int[1024];
+        ioTypes = new int[1024];
+        tasks = new int[1024];
+    }
+
+    /**
+    *   Replay of arrivals added with add(), already in create time
+    *   order, on the given disk model. Used by PolicyCheck.
+    */
+    DiskReplay(int deviceID, int tracks, int sectors, int revs, int seek, int transfer){
+        this();
+        this.deviceID = deviceID;
+        this.tracks = tracks;
+        this.sectors = sectors;
+        this.revs = revs;
+        this.seek = seek;
+        this.transfer = transfer;
+        layout(1, 1, 1, 0);
+    }
+
+    /**
+    *   Append one arrival
+    */
+    void add(long create, int cylinder, int block, int ioType, int task){
+        if (count == creates.length) {
+            int capacity = count * 2;
+            creates = Arrays.copyOf(creates, capacity);
+            cylinders = Arrays.copyOf(cylinders, capacity);
+            blocks = Arrays.copyOf(blocks, capacity);
+            ioTypes = Arrays.copyOf(ioTypes, capacity);
+            tasks = Arrays.copyOf(tasks, capacity);
+        }
+        creates[count] = create;
+        cylinders[count] = cylinder;
+        blocks[count] = block;
+        ioTypes[count] = ioType;
+        tasks[count] = task;
+        count++;
+    }
+
+    /**
+    *   Read the trace and sort the arrivals by create time
+    */
+    private void load(String filename) throws IOException{
+        TraceReader reader = new TraceReader(filename);
+        deviceID = reader.getDeviceID();
+        TraceReader.Record r = new TraceReader.Record();
+        while (reader.next(r)) {
+            add(r.create, r.dest, r.block, r.ioType, r.task);
+        }
+        reader.close();
+
+        //The trace is in completion order
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            order[i] = i;
+        }
+        sort(order, new int[count], 0, count);
+        creates = permute(creates, order);
+        cylinders = permute(cylinders, order);
+        blocks = permute(blocks, order);
+        ioTypes = permute(ioTypes, order);
+        tasks = permute(tasks, order);
+    }
+
+    /**
+    *   Disk model from the options, then params.osp, then the trace
+    */
+    private void configure(HashMap<String, Integer> options){
+        String disk = "Disk" + deviceID;
+        int maxCylinder = 0;
+        for (int i = 0; i < count; i++) {
+            maxCylinder = Math.max(maxCylinder, cylinders[i]);
+        }
+        tracks = option(options, "tracks", DeviceParams.getInt(disk + "TracksPerPlatter", 0));
+        tracks = Math.max(tracks, maxCylinder + 1);
+        sectors = Math.max(option(options, "sectors",
+            DeviceParams.getInt(disk + "SectorsPerTrack", 4)), 1);
+        revs = Math.max(option(options, "revs",
+            DeviceParams.getInt(disk + "RevolutionsPerTick", 5)), 1);
+        seek = option(options, "seek", DeviceParams.getInt(disk + "SeekTimePerCylinder", 15));
+        transfer = option(options, "transfer", 1);
+        int bytesPerSector = option(options, "bytesPerSector",
+            DeviceParams.getInt(disk + "BytesPerSector", 512));
+        layout(option(options, "platters", DeviceParams.getInt(disk + "NumberOfPlatters", 1)),
+            bytesPerSector, option(options, "blockSize", bytesPerSector),
+            option(options, "rotation", DeviceParams.getDeviceInt(deviceID, "RotationTime", 0)));
+        int mismatches = 0;
+        for (int i = 0; i < count; i++) {
+            if (geometry.cylinder(blocks[i]) != cylinders[i]) {
+                mismatches++;
+            }
+        }
+        if (mismatches > 0) {
+            System.err.println("Warning: the block layout puts " + mismatches +
+                " traced blocks on another cylinder, check -platters, " +
+                "-bytesPerSector and -blockSize");
+        }
+    }
+
+    /**
+    *   Block layout and rotation of the modelled disk
+    */
+    private void layout(int platters, int bytesPerSector, int blockSize, int rotationTime){
+        geometry = new DiskGeometry(blockSize, bytesPerSector, sectors, tracks, platters);
+        rotation = SATFPolicy.rotationTime(new Disk(tracks, sectors, revs, seek), rotationTime);
+    }
+
+    /**
+    *   Outcome of replaying the arrivals through one policy
+    */
+    static class Result{
+        String policy;
+        /**
+        *   The policy itself, in its state after the replay
+        */
+        DiskSchedulingPolicy scheduler;
+        long finish;
+        long travel;
+        LatencyHistogram response = new LatencyHistogram();
+        LatencyHistogram wait = new LatencyHistogram();
+        /**
+        *   Response time of each arrival, by index
+        */
+        long[] responses;
+    }
+
+    /**
+    *   Replay the trace through one policy and print its line
+    */
+    private void run(String name){
+        long started = System.nanoTime();
+        Result result = replay(name);
+        if (result == null) {
+            return;
+        }
+        System.out.println(String.format("%-18s %12d %10.1f %10d %10d %10.1f %12d %8d",
+            result.policy, result.finish, result.response.getMean(),
+            result.response.getPercentile(0.99), result.response.getMax(),
+            result.wait.getMean(), result.travel,
+            (System.nanoTime() - started) / 1000000));
+    }
+
+    /**
+    *   Replay the arrivals through one policy, null if the policy lost
+    *   an IORB
+    */
+    Result replay(String name){
+        HClock.set(0);
+        Disk disk = new Disk(tracks, sectors, revs, seek);
+        DiskSchedulingPolicy policy = Policies.create(deviceID, name);
+        HashMap<Integer, ThreadCB> threads = new HashMap<Integer, ThreadCB>();
+        HashMap<IORB, Integer> indexes = new HashMap<IORB, Integer>();
+        Result result = new Result();
+        result.policy = policy.getName();
+        result.scheduler = policy;
+        result.responses = new long[count];
+        long clock = 0;
+        int next = 0;
+        int done = 0;
+        while (done < count) {
+            //Idle until the next arrival
+            if (policy.isEmpty() && clock < creates[next]) {
+                clock = creates[next];
+            }
+            while (next < count && creates[next] <= clock) {
+                IORB iorb = arrival(next, threads);
+                indexes.put(iorb, next);
+                policy.enqueue(iorb);
+                next++;
+            }
+            HClock.set(clock);
+            IORB iorb = policy.dequeue(disk);
+            if (iorb == null) {
+                System.err.println(name + ": no IORB returned with " +
+                    policy.size() + " pending");
+                return null;
+            }
+            int head = disk.getHeadPosition();
+            result.travel += Math.abs(iorb.getCylinder() - head);
+            result.wait.record(clock - iorb.createTime);
+            clock += serviceTime(disk, clock, iorb);
+            disk.setHeadPosition(iorb.getCylinder());
+            result.response.record(clock - iorb.createTime);
+            result.responses[indexes.remove(iorb)] = clock - iorb.createTime;
+            done++;
+        }
+        result.finish = clock;
+        return result;
+    }
+
+    private IORB arrival(int i, HashMap<Integer, ThreadCB> threads){
+        ThreadCB thread = threads.get(tasks[i]);
+        if (thread == null) {
+            thread = new ThreadCB(new TaskCB(tasks[i]));
+            threads.put(tasks[i], thread);
+        }
+        int ioClass;
+        if (deviceID != GlobalVariables.SwapDeviceID) {
+            ioClass = IORB.FileIO;
+        } else if (ioTypes[i] == GlobalVariables.FileRead) {
+            ioClass = IORB.SwapIn;
+        } else{
+            ioClass = IORB.SwapOut;
+        }
+        IORB iorb = new IORB(thread, blocks[i], ioTypes[i], ioClass);
+        iorb.setCylinder(cylinders[i]);
+        iorb.sector = geometry.sector(blocks[i]);
+        iorb.createTime = creates[i];
+        iorb.enqueueTime = creates[i];
+        return iorb;
+    }
+
+    /**
+    *   Ticks to seek to the IORB, wait for its sector and transfer it
+    */
+    private long serviceTime(Disk disk, long now, IORB iorb){
+        double seekTime = (double)Math.abs(iorb.getCylinder() - disk.getHeadPosition()) * seek;
+        double wait = SATFPolicy.rotationalDelay(now + seekTime, iorb.sector, sectors, rotation);
+        return (long)Math.ceil(seekTime + wait) + transfer;
+    }
+
+    private static int option(HashMap<String, Integer> options, String key, int def){
+        Integer value = options.get(key);
+        return value == null ? def : value;
+    }
+
+    /**
+    *   Stable merge sort of indexes by create time
+    */
+    private void sort(int[] order, int[] buffer, int from, int to){
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(order, buffer, from, middle);
+        sort(order, buffer, middle, to);
+        if (creates[order[middle - 1]] <= creates[order[middle]]) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int i = from, j = middle;
+        for (int k = from; k < to; k++) {
+            if (j >= to || (i < middle && creates[buffer[i]] <= creates[buffer[j]])) {
+                order[k] = buffer[i++];
+            } else{
+                order[k] = buffer[j++];
+            }
+        }
+    }
+
+    private static long[] permute(long[] values, int[] order){
+        long[] result = new long[order.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = values[order[i]];
+        }
+        return result;
+    }
+
+    private static int[] permute(int[] values, int[] order){
+        int[] result = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            result[i] = values[order[i]];
+        }
+        return result;
+    }
+}
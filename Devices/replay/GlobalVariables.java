@@ -0,0 +1,11 @@
+package osp.Utilities;
+
+/**
+*   Replay stand-in for the OSP constants used by the policies and the
+*   trace, with the values of OSP.jar
+*/
+public class GlobalVariables{
+    public static final int FileWrite = 33;
+    public static final int FileRead = 34;
+    public static final int SwapDeviceID = 0;
+}
@@ -0,0 +1,16 @@
+package osp.Hardware;
+
+/**
+*   Replay stand-in for the clock of OSP, moved by the replay loop
+*/
+public class HClock{
+    private static long time = 0;
+
+    public static long get(){
+        return time;
+    }
+
+    public static void set(long t){
+        time = t;
+    }
+}
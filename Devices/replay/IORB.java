@@ -0,0 +1,56 @@
+package osp.Devices;
+
+import osp.Threads.ThreadCB;
+
+/**
+*   Replay stand-in for the IORB of OSP: only the attributes the
+*   scheduling policies use, and no OSP runtime behind it.
+*/
+public class IORB{
+    public static final int SwapIn = 0;
+    public static final int SwapOut = 1;
+    public static final int FileIO = 2;
+    public static final int NumberOfClasses = 3;
+
+    public Long createTime;
+    public Long enqueueTime;
+    public Long dequeueTime;
+    public Long finishTime;
+    public Long deadline;
+    public int sector;
+    public int ioClass;
+
+    private ThreadCB thread;
+    private int blockNumber;
+    private int ioType;
+    private int cylinder;
+
+    public IORB(ThreadCB thread, int blockNumber, int ioType, int ioClass){
+        this.thread = thread;
+        this.blockNumber = blockNumber;
+        this.ioType = ioType;
+        this.ioClass = ioClass;
+    }
+
+    public ThreadCB getThread(){
+        return thread;
+    }
+    public int getBlockNumber(){
+        return blockNumber;
+    }
+    /**
+    *   The replay has a single device
+    */
+    public int getDeviceID(){
+        return 0;
+    }
+    public int getIOType(){
+        return ioType;
+    }
+    public int getCylinder(){
+        return cylinder;
+    }
+    public void setCylinder(int cylinder){
+        this.cylinder = cylinder;
+    }
+}
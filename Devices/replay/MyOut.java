@@ -0,0 +1,23 @@
+package osp.Utilities;
+
+/**
+*   Replay stand-in for the OSP log: messages are dropped unless
+*   -verbose is given, warnings go to stderr and errors stop the replay.
+*/
+public class MyOut{
+    public static boolean verbose = false;
+
+    public static void print(Object source, String message){
+        if (verbose) {
+            System.out.println(source + ": " + message);
+        }
+    }
+
+    public static void warning(Object source, String message){
+        System.err.println("Warning: " + source + ": " + message);
+    }
+
+    public static void error(Object source, String message){
+        throw new IllegalStateException(source + ": " + message);
+    }
+}
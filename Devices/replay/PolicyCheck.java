@@ -0,0 +1,252 @@
+package osp.Devices;
+
+import java.util.*;
+import osp.Hardware.*;
+import osp.Threads.ThreadCB;
+import osp.Tasks.TaskCB;
+import osp.Utilities.*;
+
+/**
+*   Behaviour checks of the disk scheduling policies, run on the replay
+*   model with small made-up workloads.
+*
+*   Each check prints one line, and the program exits with status 1 if
+*   any of them failed, so "make check" can gate a change. Disk model:
+*   64 cylinders, 4 sectors, 5 revolutions per tick, seek 15 per
+*   cylinder, transfer 1, the defaults of params.osp, one block per
+*   sector and the default rotation time of 60 ticks.
+*/
+public class PolicyCheck{
+    private static final int Tracks = 64;
+    private static final int Sectors = 4;
+    private static final int Revs = 5;
+    private static final int Seek = 15;
+    private static final int Transfer = 1;
+    /**
+    *   Longest a single request can take: a full-stroke seek, a full
+    *   revolution and the transfer
+    */
+    private static final int MaxService = Tracks * Seek + Seek * Sectors + Transfer;
+
+    private int failures = 0;
+
+    public static void main(String[] args){
+        PolicyCheck check = new PolicyCheck();
+        check.deadlineExpiredRead();
+        check.deadlineOverload();
+        check.satfFirstChoice();
+        check.satfReplay();
+        check.cfqTail();
+        check.adaptiveSwitches();
+        check.adaptiveShallowStarvation();
+        System.out.println(check.failures == 0 ? "All checks passed" :
+            check.failures + " check(s) failed");
+        System.exit(check.failures == 0 ? 0 : 1);
+    }
+
+    /**
+    *   A read on the far edge while requests keep arriving on the head's
+    *   cylinder: C-LOOK starves it, DEADLINE serves it right after it
+    *   expires.
+    */
+    private void deadlineExpiredRead(){
+        DiskReplay replay = disk(GlobalVariables.SwapDeviceID);
+        for (int t = 0; t < 3000; t++) {
+            replay.add(t, 0, block(0), GlobalVariables.FileWrite, 2);
+            if (t == 10) {
+                replay.add(t, Tracks - 1, block(Tracks - 1), GlobalVariables.FileRead, 1);
+            }
+        }
+        long clook = replay.replay("CLOOK").responses[11];
+        long deadline = replay.replay("DEADLINE").responses[11];
+        int readExpire = DeviceParams.getInt("ReadExpireTime", 500);
+        check(clook > 2 * readExpire, "CLOOK starves the far read (" + clook + " ticks)");
+        check(deadline <= readExpire + 2 * MaxService,
+            "DEADLINE serves the expired read in " + deadline + " ticks, bound " +
+            (readExpire + 2 * MaxService));
+    }
+
+    /**
+    *   Under overload every request expires. DEADLINE must still sweep
+    *   and stay close to C-LOOK instead of seeking in FIFO order.
+    */
+    private void deadlineOverload(){
+        DiskReplay replay = disk(GlobalVariables.SwapDeviceID);
+        random(replay, 20000, 2, 1);
+        DiskReplay.Result clook = replay.replay("CLOOK");
+        DiskReplay.Result deadline = replay.replay("DEADLINE");
+        check(deadline.response.getMean() <= 1.5 * clook.response.getMean(),
+            String.format("DEADLINE mean response %.0f under overload, CLOOK %.0f",
+            deadline.response.getMean(), clook.response.getMean()));
+    }
+
+    /**
+    *   From cylinder 0 at clock 0, the head reaches cylinder 1 as sector
+    *   1 passes and cylinder 2 as sector 2 passes. A request for sector 0
+    *   on cylinder 1 waits most of a revolution, so SATF takes sector 2
+    *   on cylinder 2 first while SSTF takes the closer cylinder.
+    */
+    private void satfFirstChoice(){
+        for (String name : new String[] {"SATF", "SSTF"}) {
+            HClock.set(0);
+            Disk disk = new Disk(Tracks, Sectors, Revs, Seek);
+            DiskSchedulingPolicy policy = Policies.create(GlobalVariables.SwapDeviceID, name);
+            ThreadCB thread = new ThreadCB(new TaskCB(1));
+            policy.enqueue(request(thread, 1, 0));
+            policy.enqueue(request(thread, 2, 2));
+            int expected = name.equals("SATF") ? 2 : 1;
+            IORB first = policy.dequeue(disk);
+            check(first.getCylinder() == expected,
+                name + " serves cylinder " + first.getCylinder() + " first, expected " + expected);
+        }
+    }
+
+    /**
+    *   On a random workload the rotation SATF saves must show up
+    */
+    private void satfReplay(){
+        DiskReplay replay = disk(GlobalVariables.SwapDeviceID);
+        random(replay, 20000, 60, 4);
+        DiskReplay.Result satf = replay.replay("SATF");
+        DiskReplay.Result sstf = replay.replay("SSTF");
+        check(satf.response.getMean() < 0.9 * sstf.response.getMean(),
+            String.format("SATF mean response %.0f, SSTF %.0f",
+            satf.response.getMean(), sstf.response.getMean()));
+    }
+
+    /**
+    *   Six tasks, task 0 sending half of the requests. Within a task, SSTF
+    *   from wherever the other tasks left the head passes over requests
+    *   on the edges; the time slice and the aging must bound that.
+    */
+    private void cfqTail(){
+        DiskReplay replay = disk(GlobalVariables.SwapDeviceID);
+        Random random = new Random(2);
+        long t = 0;
+        for (int i = 0; i < 50000; i++) {
+            t += random.nextInt(400);
+            int cylinder = random.nextInt(Tracks);
+            int task = random.nextBoolean() ? 0 : 1 + random.nextInt(5);
+            replay.add(t, cylinder, block(cylinder) + random.nextInt(Sectors),
+                random.nextBoolean() ? GlobalVariables.FileRead : GlobalVariables.FileWrite, task);
+        }
+        DiskReplay.Result cfq = replay.replay("CFQ");
+        //Aging, then a slice of every task until the task's pass reaches
+        //the request, with room for one slice overrunning per task
+        long bound = 2 * (DeviceParams.getInt("CFQMaxWaitTime", 5000) +
+            6 * (DeviceParams.getInt("CFQSliceTime", 2000) + MaxService));
+        check(cfq.response.getMax() <= bound,
+            "CFQ max response " + cfq.response.getMax() + ", p99 " +
+            cfq.response.getPercentile(0.99) + ", bound " + bound);
+    }
+
+    /**
+    *   A far read starved by a stream on the head's cylinder makes
+    *   ADAPTIVE go fair. Afterwards, once the stream is served (each of
+    *   its requests waits a revolution for its sector), groups of four
+    *   requests arrive on the edge away from the head. The queue is
+    *   shallow, but the last of a group waits for the full-stroke seek
+    *   of the first, more than half of the wait limit; ADAPTIVE must
+    *   still go back to greedy.
+    */
+    private void adaptiveSwitches(){
+        DiskReplay busy = disk(GlobalVariables.SwapDeviceID);
+        DiskReplay both = disk(GlobalVariables.SwapDeviceID);
+        for (int t = 0; t < 3000; t++) {
+            busy.add(t, 0, block(0), GlobalVariables.FileWrite, 2);
+            both.add(t, 0, block(0), GlobalVariables.FileWrite, 2);
+            if (t == 10) {
+                busy.add(t, Tracks - 1, block(Tracks - 1), GlobalVariables.FileRead, 1);
+                both.add(t, Tracks - 1, block(Tracks - 1), GlobalVariables.FileRead, 1);
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            int first = i % 2 == 0 ? Tracks - 4 : 0;
+            for (int cylinder = first; cylinder < first + 4; cylinder++) {
+                both.add(400000 + i * 5000, cylinder, block(cylinder), GlobalVariables.FileRead, 1);
+            }
+        }
+        AdaptivePolicy adaptive = (AdaptivePolicy)busy.replay("ADAPTIVE").scheduler;
+        check(adaptive.getSwitches() == 1 && adaptive.getActive().getName().equals("FSCAN"),
+            "ADAPTIVE goes fair when a read starves (" + adaptive.getSwitches() +
+            " switches, ends on " + adaptive.getActive().getName() + ")");
+        adaptive = (AdaptivePolicy)both.replay("ADAPTIVE").scheduler;
+        check(adaptive.getSwitches() == 2 && adaptive.getActive().getName().equals("SSTF"),
+            "ADAPTIVE goes back to greedy under light load (" + adaptive.getSwitches() +
+            " switches, ends on " + adaptive.getActive().getName() + ")");
+    }
+
+    /**
+    *   A stream on the head's cylinder arriving about as fast as the disk
+    *   serves it keeps the queue shallow, and a read on cylinder 8 every
+    *   4000 ticks starves under SSTF until the stream pauses. Without
+    *   hysteresis ADAPTIVE went back to greedy one window after serving
+    *   the read and fair again at the next one. It must stay fair at
+    *   least AdaptiveMinDwell dequeues per round trip, and still beat
+    *   SSTF on the tail.
+    */
+    private void adaptiveShallowStarvation(){
+        DiskReplay replay = disk(GlobalVariables.SwapDeviceID);
+        int arrivals = 0;
+        for (int t = 0; t < 100000; t += 64) {
+            replay.add(t, 0, block(0), GlobalVariables.FileWrite, 2);
+            arrivals++;
+            if (t % 4000 < 64) {
+                replay.add(t, 8, block(8), GlobalVariables.FileRead, 1);
+                arrivals++;
+            }
+        }
+        DiskReplay.Result adaptive = replay.replay("ADAPTIVE");
+        DiskReplay.Result sstf = replay.replay("SSTF");
+        int switches = ((AdaptivePolicy)adaptive.scheduler).getSwitches();
+        int bound = 2 * arrivals / (DeviceParams.getInt("AdaptiveMinDwell", 256) +
+            DeviceParams.getInt("AdaptiveWindow", 32)) + 1;
+        check(switches <= bound && adaptive.response.getMax() < sstf.response.getMax(),
+            "ADAPTIVE switches " + switches + " times on a shallow starving queue, bound " +
+            bound + ", max response " + adaptive.response.getMax() + ", SSTF " +
+            sstf.response.getMax());
+    }
+
+    private IORB request(ThreadCB thread, int cylinder, int sector){
+        IORB iorb = new IORB(thread, block(cylinder) + sector, GlobalVariables.FileRead, IORB.SwapIn);
+        iorb.setCylinder(cylinder);
+        iorb.sector = sector;
+        iorb.createTime = HClock.get();
+        iorb.enqueueTime = HClock.get();
+        return iorb;
+    }
+
+    private DiskReplay disk(int deviceID){
+        return new DiskReplay(deviceID, Tracks, Sectors, Revs, Seek, Transfer);
+    }
+
+    /**
+    *   Arrivals on random cylinders, every 0..maxGap-1 ticks, reads and
+    *   writes mixed, from the given number of tasks
+    */
+    private void random(DiskReplay replay, int count, int maxGap, int tasks){
+        Random random = new Random(1);
+        long t = 0;
+        for (int i = 0; i < count; i++) {
+            t += random.nextInt(maxGap);
+            int cylinder = random.nextInt(Tracks);
+            replay.add(t, cylinder, block(cylinder) + random.nextInt(Sectors),
+                random.nextBoolean() ? GlobalVariables.FileRead : GlobalVariables.FileWrite,
+                random.nextInt(tasks));
+        }
+    }
+
+    /**
+    *   First block of a cylinder, one block per sector
+    */
+    private static int block(int cylinder){
+        return cylinder * Sectors;
+    }
+
+    private void check(boolean ok, String what){
+        System.out.println((ok ? "ok      " : "FAILED  ") + what);
+        if (!ok) {
+            failures++;
+        }
+    }
+}
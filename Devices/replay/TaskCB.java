@@ -0,0 +1,20 @@
+package osp.Tasks;
+
+/**
+*   Replay stand-in for a task, known by the ID in the trace
+*/
+public class TaskCB{
+    private int id;
+
+    public TaskCB(int id){
+        this.id = id;
+    }
+
+    public int getID(){
+        return id;
+    }
+
+    public String toString(){
+        return "Task(" + id + ")";
+    }
+}
@@ -0,0 +1,19 @@
+package osp.Threads;
+
+import osp.Tasks.TaskCB;
+
+/**
+*   Replay stand-in for a thread: the trace only knows the task, so
+*   there is one thread per task.
+*/
+public class ThreadCB{
+    private TaskCB task;
+
+    public ThreadCB(TaskCB task){
+        this.task = task;
+    }
+
+    public TaskCB getTask(){
+        return task;
+    }
+}
@@ -0,0 +1,152 @@
+package osp.Memory;
+
+import java.util.*;
+import osp.Utilities.*;
+
+/**
+*   ARC (Adaptive Replacement Cache) replacement.
+*
+*   Resident frames are split into T1, pages referenced once since they
+*   were brought in, and T2, pages referenced again. Both are kept in
+*   LRU order. B1 and B2 are ghost lists of the pages recently evicted
+*   from T1 and T2: only the pages are remembered, not their frames. A
+*   fault on a page in B1 means T1 was too small, so the target size of
+*   T1 grows; a fault on a page in B2 shrinks it. The victim comes from
+*   T1 while T1 is above its target, from T2 otherwise. A scan touches
+*   each page once, so it only churns T1 and leaves the pages in T2
+*   alone.
+*
+*   T1 and T2 are FrameLists, so moving a frame between them is
+*   constant time and the victim is the head of a list. Only the ghost
+*   lists are hashed, by page.
+*
+*   Pages freed because their task terminated are not remembered.
+*/
+public class ARCPolicy implements ReplacementPolicy{
+    private int frames;
+    /**
+    *   Target size of T1
+    */
+    private int target = 0;
+    private FrameList t1;
+    private FrameList t2;
+    private LinkedHashSet<PageTableEntry> b1 = new LinkedHashSet<PageTableEntry>();
+    private LinkedHashSet<PageTableEntry> b2 = new LinkedHashSet<PageTableEntry>();
+
+    public ARCPolicy(int frames){
+        this.frames = frames;
+        t1 = new FrameList(frames);
+        t2 = new FrameList(frames);
+    }
+
+    /**
+    *   A page referenced again moves to the most recently used end of
+    *   T2
+    */
+    public void referenced(FrameTableEntry frame){
+        if (t1.remove(frame) || t2.remove(frame)) {
+            t2.add(frame);
+        }
+    }
+
+    /**
+    *   A page found in a ghost list adapts the target and goes to T2,
+    *   any other page to T1
+    */
+    public void loaded(FrameTableEntry frame){
+        t1.remove(frame);
+        t2.remove(frame);
+        PageTableEntry page = frame.getPage();
+        if (page != null && (b1.contains(page) || b2.contains(page))) {
+            target = adaptedTarget(page);
+            b1.remove(page);
+            b2.remove(page);
+            t2.add(frame);
+        } else{
+            t1.add(frame);
+        }
+        trim();
+    }
+
+    public void freed(FrameTableEntry frame){
+        PageTableEntry page = frame.getPage();
+        boolean remember = page != null && page.getTask() != null &&
+            page.getTask().getStatus() != GlobalVariables.TaskTerm;
+        if (t1.remove(frame)) {
+            if (remember) {
+                b1.add(page);
+            }
+        } else if (t2.remove(frame)) {
+            if (remember) {
+                b2.add(page);
+            }
+        }
+        trim();
+    }
+
+    /**
+    *   The least recently used frame of T1 if T1 is above the target,
+    *   of T2 otherwise. The target is the one the fault on the page
+    *   will set.
+    */
+    public FrameTableEntry victim(PageTableEntry page){
+        int size = adaptedTarget(page);
+        boolean fromT1 = !t1.isEmpty() &&
+            (t1.size() > size || (t1.size() == size && b2.contains(page)));
+        FrameTableEntry frame = fromT1 ? t1.firstFree() : t2.firstFree();
+        if (frame == null) {
+            frame = fromT1 ? t2.firstFree() : t1.firstFree();
+        }
+        return frame;
+    }
+
+    public Iterator<FrameTableEntry> evictionOrder(){
+        if (t1.size() > target) {
+            return FrameList.concat(t1, t2);
+        }
+        return FrameList.concat(t2, t1);
+    }
+
+    public String getName(){
+        return "ARC";
+    }
+
+    /**
+    *   Target size of T1 after a fault on the page: larger for a page
+    *   in B1, smaller for a page in B2, by the ratio of the ghost list
+    *   sizes but at least one frame.
+    */
+    private int adaptedTarget(PageTableEntry page){
+        if (page == null) {
+            return target;
+        }
+        if (b1.contains(page)) {
+            int delta = b1.size() >= b2.size() ? 1 : b2.size() / b1.size();
+            return Math.min(target + delta, frames);
+        }
+        if (b2.contains(page)) {
+            int delta = b2.size() >= b1.size() ? 1 : b1.size() / b2.size();
+            return Math.max(target - delta, 0);
+        }
+        return target;
+    }
+
+    /**
+    *   Keep T1 and B1 within the frame count and all four lists within
+    *   twice of it
+    */
+    private void trim(){
+        while (t1.size() + b1.size() > frames && !b1.isEmpty()) {
+            removeFirst(b1);
+        }
+        while (t1.size() + t2.size() + b1.size() + b2.size() > 2 * frames && !b2.isEmpty()) {
+            removeFirst(b2);
+        }
+    }
+
+    private static <T> void removeFirst(LinkedHashSet<T> list){
+        Iterator<T> iterator = list.iterator();
+        iterator.next();
+        iterator.remove();
+    }
+}
@@ -0,0 +1,74 @@
+package osp.Memory;
+
+import java.util.*;
+
+/**
+*   CLOCK (second chance) replacement.
+*
+*   A reference only sets the reference bit of the frame, which MMU
+*   does anyway, so the policy costs nothing per reference. At fault
+*   time the hand sweeps the frames in ID order: a referenced frame has
+*   its bit cleared and is passed over once, the first frame found with
+*   the bit clear is the victim. Two full turns of the hand find a
+*   victim if any frame holding a page is not occupied.
+*/
+public class ClockPolicy implements ReplacementPolicy{
+    private int frames;
+    private int hand = 0;
+
+    public ClockPolicy(int frames){
+        this.frames = frames;
+    }
+
+    public void referenced(FrameTableEntry frame){
+    }
+
+    public void loaded(FrameTableEntry frame){
+    }
+
+    public void freed(FrameTableEntry frame){
+    }
+
+    public FrameTableEntry victim(PageTableEntry page){
+        for (int step = 0; step < 2 * frames; step++) {
+            FrameTableEntry frame = MMU.getFrame(hand);
+            hand = (hand + 1) % frames;
+            if (frame.getPage() == null || frame.isOccupied()) {
+                continue;
+            }
+            if (frame.isReferenced()) {
+                //Second chance
+                frame.setReferenced(false);
+                continue;
+            }
+            return frame;
+        }
+        return null;
+    }
+
+    /**
+    *   The frames from the hand on, the ones whose reference bit is
+    *   clear first
+    */
+    public Iterator<FrameTableEntry> evictionOrder(){
+        List<FrameTableEntry> cold = new ArrayList<FrameTableEntry>();
+        List<FrameTableEntry> warm = new ArrayList<FrameTableEntry>();
+        for (int step = 0; step < frames; step++) {
+            FrameTableEntry frame = MMU.getFrame((hand + step) % frames);
+            if (frame.getPage() == null) {
+                continue;
+            }
+            if (frame.isReferenced()) {
+                warm.add(frame);
+            } else{
+                cold.add(frame);
+            }
+        }
+        cold.addAll(warm);
+        return cold.iterator();
+    }
+
+    public String getName(){
+        return "CLOCK";
+    }
+}
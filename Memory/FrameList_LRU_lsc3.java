@@ -0,0 +1,132 @@
+package osp.Memory;
+
+import java.util.*;
+
+/**
+*   A list of frames, least recently added first, threaded through the
+*   frame IDs like the queue of LRUPolicy: prev/next hold the neighbour
+*   IDs, NoFrame ends the list and NotInList marks a frame that is not
+*   in it. Adding, removing and looking up a frame is constant time,
+*   without hashing. ARC and 2Q keep their resident lists in it.
+*/
+class FrameList{
+    private static final int NoFrame = -1;
+    private static final int NotInList = -2;
+
+    private int[] prev;
+    private int[] next;
+    private int head = NoFrame;
+    private int tail = NoFrame;
+    private int size = 0;
+
+    FrameList(int frames){
+        prev = new int[frames];
+        next = new int[frames];
+        Arrays.fill(prev, NotInList);
+        Arrays.fill(next, NotInList);
+    }
+
+    public boolean contains(FrameTableEntry frame){
+        return prev[frame.getID()] != NotInList;
+    }
+
+    /**
+    *   Put the frame at the end of the list, or move it there
+    */
+    public void add(FrameTableEntry frame){
+        int id = frame.getID();
+        if (id == tail) {
+            return;
+        }
+        remove(frame);
+        prev[id] = tail;
+        next[id] = NoFrame;
+        if (tail == NoFrame) {
+            head = id;
+        } else{
+            next[tail] = id;
+        }
+        tail = id;
+        size++;
+    }
+
+    /**
+    *   Take the frame out of the list
+    *   @return false if it was not in it
+    */
+    public boolean remove(FrameTableEntry frame){
+        int id = frame.getID();
+        if (prev[id] == NotInList) {
+            return false;
+        }
+        int before = prev[id];
+        int after = next[id];
+        if (before == NoFrame) {
+            head = after;
+        } else{
+            next[before] = after;
+        }
+        if (after == NoFrame) {
+            tail = before;
+        } else{
+            prev[after] = before;
+        }
+        prev[id] = NotInList;
+        next[id] = NotInList;
+        size--;
+        return true;
+    }
+
+    /**
+    *   The first frame that is not occupied. Only frames locked or
+    *   reserved for I/O are passed over, not the whole list.
+    */
+    public FrameTableEntry firstFree(){
+        for (int id = head; id != NoFrame; id = next[id]) {
+            FrameTableEntry frame = MMU.getFrame(id);
+            if (!frame.isOccupied()) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    public int size(){
+        return size;
+    }
+
+    public boolean isEmpty(){
+        return size == 0;
+    }
+
+    /**
+    *   The frames of the first list, then of the second. The iterator
+    *   steps ahead before returning a frame, so the frame returned may
+    *   be removed from its list while iterating.
+    */
+    public static Iterator<FrameTableEntry> concat(final FrameList first, final FrameList second){
+        return new Iterator<FrameTableEntry>(){
+            private FrameList list = first;
+            private int id = first.head;
+
+            public boolean hasNext(){
+                if (id == NoFrame && list == first) {
+                    list = second;
+                    id = second.head;
+                }
+                return id != NoFrame;
+            }
+            public FrameTableEntry next(){
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                FrameTableEntry frame = MMU.getFrame(id);
+                id = list.next[id];
+                return frame;
+            }
+            public void remove(){
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+}
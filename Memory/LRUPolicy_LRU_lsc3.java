@@ -0,0 +1,135 @@
+package osp.Memory;
+
+import java.util.*;
+
+/**
+*   LRU and FIFO replacement.
+*
+*   The frames holding a page form a queue, least recently used (or
+*   loaded, for FIFO) first. The queue is a doubly linked list threaded
+*   through the frame IDs: prev/next hold the neighbour IDs, NoFrame
+*   ends the list and NotInList marks a frame that is not in it.
+*   Touching, inserting and removing a frame is constant time. FIFO is
+*   the same queue without moving a frame on reference.
+*/
+public class LRUPolicy implements ReplacementPolicy{
+    private static final int NoFrame = -1;
+    private static final int NotInList = -2;
+
+    private boolean reorder;
+    private int[] prev;
+    private int[] next;
+    /**
+    *   Least and most recently used frame
+    */
+    private int head = NoFrame;
+    private int tail = NoFrame;
+
+    /**
+    *   @param reorder true for LRU, false for FIFO
+    */
+    public LRUPolicy(int frames, boolean reorder){
+        this.reorder = reorder;
+        prev = new int[frames];
+        next = new int[frames];
+        Arrays.fill(prev, NotInList);
+        Arrays.fill(next, NotInList);
+    }
+
+    /**
+    *   The referenced frame becomes the most recently used one
+    */
+    public void referenced(FrameTableEntry frame){
+        int id = frame.getID();
+        if (!reorder || id == tail) {
+            return;
+        }
+        unlink(id);
+        append(id);
+    }
+
+    public void loaded(FrameTableEntry frame){
+        unlink(frame.getID());
+        append(frame.getID());
+    }
+
+    public void freed(FrameTableEntry frame){
+        unlink(frame.getID());
+    }
+
+    /**
+    *   The least recently used frame that is not occupied
+    */
+    public FrameTableEntry victim(PageTableEntry page){
+        for (int id = head; id != NoFrame; id = next[id]) {
+            FrameTableEntry frame = MMU.getFrame(id);
+            if (!frame.isOccupied()) {
+                return frame;
+            }
+        }
+        return null;
+    }
+
+    public Iterator<FrameTableEntry> evictionOrder(){
+        return new Iterator<FrameTableEntry>(){
+            private int id = head;
+
+            public boolean hasNext(){
+                return id != NoFrame;
+            }
+            public FrameTableEntry next(){
+                if (id == NoFrame) {
+                    throw new NoSuchElementException();
+                }
+                FrameTableEntry frame = MMU.getFrame(id);
+                id = next[id];
+                return frame;
+            }
+            public void remove(){
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    public String getName(){
+        return reorder ? "LRU" : "FIFO";
+    }
+
+    /**
+    *   Take a frame out of the queue, nothing if it is not in it
+    */
+    private void unlink(int id){
+        if (prev[id] == NotInList) {
+            return;
+        }
+        int before = prev[id];
+        int after = next[id];
+        if (before == NoFrame) {
+            head = after;
+        } else{
+            next[before] = after;
+        }
+        if (after == NoFrame) {
+            tail = before;
+        } else{
+            prev[after] = before;
+        }
+        prev[id] = NotInList;
+        next[id] = NotInList;
+    }
+
+    /**
+    *   Put a frame that is not in the queue at its most recently used
+    *   end
+    */
+    private void append(int id){
+        prev[id] = tail;
+        next[id] = NoFrame;
+        if (tail == NoFrame) {
+            head = id;
+        } else{
+            next[tail] = id;
+        }
+        tail = id;
+    }
+}
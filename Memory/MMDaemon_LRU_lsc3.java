@@ -13,13 +13,36 @@ import osp.Interrupts.*;
 *	memory space
 */
 class MMDaemon implements DaemonInterface{
+	/**
+	*	What the daemon does: clean zombie frames, keep free frames
+	*	between the watermarks, or write deferred dirty pages back
+	*/
+	public static final int ZombieCleaner = 0;
+	public static final int PageCleaner = 1;
+	public static final int PageWriter = 2;
+	private int kind;
+
+	public MMDaemon(int kind){
+		this.kind = kind;
+	}
+
 	/**
 	*	This method will be repeatedly called, and it will clean memory
 	*	space where exists a 'zombie' frame that will never be remove by 
 	*	its associated thread.
 	*/
 	public void unleash(ThreadCB thread){
+		if (kind == PageCleaner) {
+			MyOut.print(thread, "Periodically keep free memory frames.");
+			MMU.balanceFrames(thread);
+			return;
+		}
+		if (kind == PageWriter) {
+			MyOut.print(thread, "Periodically write back deferred pages.");
+			Writeback.flush(thread);
+			return;
+		}
 		MyOut.print(thread, "Periodically clean memory frames.");
 		MMU.cleanFrames(thread);
 	}
-}
\ No newline at end of file
+}
@@ -18,7 +18,33 @@ import osp.FileSys.OpenFile;
 */
 public class MMU extends IflMMU
 {
-    private static GenericList LRUlist;
+    /**
+    *   Page replacement policy, [Memory] Replacement in params.osp
+    */
+    private static ReplacementPolicy replacement;
+    /**
+    *   IDs of the frames without a page, as a stack. An ID may be stale
+    *   when the frame got a page or was reserved since it was pushed,
+    *   popFreeFrame() skips those. inFreeFrames keeps an ID from being
+    *   pushed twice.
+    */
+    private static int[] freeFrames;
+    private static int freeFramesTop;
+    private static boolean[] inFreeFrames;
+    /**
+    *   Number of frames that are locked or reserved, and of frames
+    *   without a page that are neither
+    */
+    private static int occupiedFrames;
+    private static int freeFrameCount;
+    /**
+    *   Frames reserved through reserveFrame() and not yet unreserved
+    *   through unreserveFrame(). The disk interrupt handler unreserves
+    *   the frame of a terminated task with the OSP call directly, so
+    *   these are checked before the counters are used.
+    */
+    private static HashSet<FrameTableEntry> reservedFrames = 
+      new HashSet<FrameTableEntry>();
     /**
     *   Total page fault amount
     */
@@ -31,6 +57,19 @@ public class MMU extends IflMMU
     *   Total page reference amount
     */
     private static int referencedPageNum;
+    /**
+    *   Dirty pages written back together with a dirty victim
+    */
+    private static int writebackBatch;
+    /**
+    *   Page cleaner: when fewer than cleanerLow frames are free, cold
+    *   pages are written back and evicted until cleanerHigh are
+    *   free. 0 turns the cleaner off.
+    */
+    private static int cleanerLow;
+    private static int cleanerHigh;
+    private static int cleanerWrites;
+    private static int cleanerEvictions;
 
     public static void addPFstats(boolean successful){
       if (successful) {
@@ -55,6 +94,32 @@ public class MMU extends IflMMU
       return referencedPageNum;
     }
 
+    public static ReplacementPolicy getReplacementPolicy() {
+      return replacement;
+    }
+
+    /**
+    *   Build the replacement policy of the given name, LRU if the name
+    *   is unknown
+    */
+    private static ReplacementPolicy createPolicy(String name, int frames){
+      name = name.trim().toUpperCase();
+      if (name.equals("FIFO")) {
+        return new LRUPolicy(frames, false);
+      } else if (name.equals("CLOCK")) {
+        return new ClockPolicy(frames);
+      } else if (name.equals("ARC")) {
+        return new ARCPolicy(frames);
+      } else if (name.equals("2Q")) {
+        return new TwoQueuePolicy(frames,
+          MemoryParams.getInt("TwoQueueIn", 25),
+          MemoryParams.getInt("TwoQueueOut", 50));
+      } else if (!name.equals("LRU")) {
+        MyOut.warning("MMU", "Unknown replacement policy " + name + ", using LRU");
+      }
+      return new LRUPolicy(frames, true);
+    }
+
 
     /** 
     *        This method is called once before the simulation starts. 
@@ -67,12 +132,39 @@ public class MMU extends IflMMU
       PFAmount = 0;
       successfulPFAmount = 0;
       referencedPageNum = 0;
-      LRUlist = new GenericList();
+      writebackBatch = Math.max(
+        MemoryParams.getInt("WritebackBatch", 1), 1);
       int frameTableSize = MMU.getFrameTableSize();
+      replacement = createPolicy(
+        MemoryParams.getString("Replacement", "LRU"), frameTableSize);
+      freeFrames = new int[frameTableSize];
+      inFreeFrames = new boolean[frameTableSize];
+      freeFramesTop = 0;
+      occupiedFrames = 0;
+      reservedFrames.clear();
       for (int i = 0; i < frameTableSize; i++) {
         MMU.setFrame(i, new FrameTableEntry(i));
       }
-      Daemon.create("Memory management daemon", new MMDaemon(), 10000);
+      freeFrameCount = frameTableSize;
+      //Frame 0 on top, the order a scan of the frame table would take
+      for (int i = frameTableSize - 1; i >= 0; i--) {
+        pushFreeFrame(MMU.getFrame(i));
+      }
+      cleanerLow = Math.max(MemoryParams.getInt("CleanerLowWatermark", 0), 0);
+      cleanerHigh = Math.max(
+        MemoryParams.getInt("CleanerHighWatermark", cleanerLow), cleanerLow);
+      cleanerWrites = 0;
+      cleanerEvictions = 0;
+      Writeback.init();
+      Daemon.create("Memory management daemon", new MMDaemon(MMDaemon.ZombieCleaner), 10000);
+      if (cleanerLow > 0) {
+        Daemon.create("Page cleaner daemon", new MMDaemon(MMDaemon.PageCleaner),
+          Math.max(MemoryParams.getInt("CleanerInterval", 1000), 1));
+      }
+      if (writebackBatch > 1) {
+        Daemon.create("Writeback daemon", new MMDaemon(MMDaemon.PageWriter),
+          Math.max(MemoryParams.getInt("WritebackInterval", 200), 1));
+      }
     }
 
     /**
@@ -136,6 +228,9 @@ public class MMU extends IflMMU
 
       //Get the page
       PageTableEntry page = taskPageTable.pages[pageNumber];
+      //A page brought in by this reference was just handed to the
+      //replacement policy, it is not referenced again
+      boolean faulted = !page.isValid();
       //When the page is not valid, initiate a pagefault
       if (!page.isValid()) {
         MyOut.print(thread, "\t Page is not valid.");
@@ -173,7 +268,9 @@ public class MMU extends IflMMU
       setReferencedAndDirty(validFrame, referenceType, thread);
 
       //Each reference may cause changes in the LRU count
-      do_LRUAlignment(validFrame);
+      if (!faulted) {
+        do_LRUAlignment(validFrame);
+      }
       addReferencedPageNum();
       return page;
     }
@@ -195,18 +292,17 @@ public class MMU extends IflMMU
       //Set dirty bit
       if (referenceType == MemoryWrite) {
         frame.setDirty(true);
+        Writeback.noteWrite(frame);
       }
     }
 
     /**
-    *   This method keep LRU count of frame in order. The frame
-    *   referenced will be set to the end of the LRU queue, 
-    *   indicating that it is the most recently used frame.
+    *   This method tells the replacement policy about a reference.
+    *   For LRU the frame referenced will be set to the end of the LRU
+    *   queue, indicating that it is the most recently used frame.
     */
     private static void do_LRUAlignment(FrameTableEntry frame){
-      MyOut.print(frame, "LRU is align");
-      LRUlist.remove(frame);
-      LRUlist.append(frame);
+      replacement.referenced(frame);
     }
 
     /**
@@ -216,28 +312,37 @@ public class MMU extends IflMMU
     *   if no reference for a long time.
     */
     public static void newLRU(FrameTableEntry frame){
-      MyOut.print(frame, "Insert frame into LRU list.");
-      if (LRUlist.contains(frame)) {
-        LRUlist.remove(frame);
-      }
-      LRUlist.append(frame);
+      MyOut.print(frame, "Insert frame into " + replacement.getName() + " policy.");
+      replacement.loaded(frame);
     }
 
     /**
-    *   Select the least recently used frame that is valid for
-    *   replacement.
+    *   Select a frame that is valid for replacement, the least
+    *   recently used one for LRU.
+    *   @param page the page the frame is needed for
     */
-    public static FrameTableEntry getLRUframe(){
-      MyOut.print(MMU.getPTBR().getTask(), "Get LRU frame.");
-      FrameTableEntry frame = null;
-      Enumeration iterator = LRUlist.forwardIterator();
-      while(iterator.hasMoreElements()){
-        frame = (FrameTableEntry)(iterator.nextElement());
-        if (!frame.isOccupied()) {
-          return frame;
+    public static FrameTableEntry getLRUframe(PageTableEntry page){
+      MyOut.print(MMU.getPTBR().getTask(), "Get " + replacement.getName() + " frame.");
+      return replacement.victim(page);
+    }
+
+    /**
+    *   Pages to write back together with a dirty victim: the victim and
+    *   the next dirty frames in replacement order that are not occupied,
+    *   up to the configured batch size.
+    */
+    public static List<PageTableEntry> getWritebackBatch(FrameTableEntry victim){
+      List<PageTableEntry> pages = new ArrayList<PageTableEntry>();
+      pages.add(victim.getPage());
+      Iterator<FrameTableEntry> order = replacement.evictionOrder();
+      while (pages.size() < writebackBatch && order.hasNext()) {
+        FrameTableEntry frame = order.next();
+        if (frame != victim && !frame.isOccupied() && frame.isDirty() &&
+          frame.getPage() != null) {
+          pages.add(frame.getPage());
         }
       }
-      return null;
+      return pages;
     }
 
     /**
@@ -245,18 +350,182 @@ public class MMU extends IflMMU
     */
     synchronized public static void free(FrameTableEntry frame){
       MyOut.print(frame, "Free " + frame);
+      PageTableEntry originalPage = frame.getPage();
+      collectUnreserved();
+      boolean wasFree = isFree(frame);
+      replacement.freed(frame);
       frame.setReferenced(false);
       frame.setPage(null);
+      if (!wasFree && isFree(frame)) {
+        freeFrameCount++;
+      }
       frame.setDirty(false);
-      LRUlist.remove(frame);
-      PageTableEntry originalPage = frame.getPage();
-      if (originalPage != null && 
+      pushFreeFrame(frame);
+      if (originalPage != null && originalPage.getFrame() != null &&
         originalPage.getFrame().getID() == frame.getID()) {
         originalPage.setValid(false);
         originalPage.setFrame(null);
       }
     }
 
+    /**
+    *   A frame that has no page, on top of the free frame stack
+    */
+    synchronized public static void pushFreeFrame(FrameTableEntry frame){
+      int id = frame.getID();
+      if (!inFreeFrames[id]) {
+        inFreeFrames[id] = true;
+        freeFrames[freeFramesTop++] = id;
+      }
+    }
+
+    /**
+    *   A frame that has no page and is not occupied, null if there is
+    *   none. Stale IDs are dropped on the way, so this is amortized
+    *   constant time.
+    */
+    synchronized public static FrameTableEntry popFreeFrame(){
+      while (freeFramesTop > 0) {
+        int id = freeFrames[--freeFramesTop];
+        inFreeFrames[id] = false;
+        FrameTableEntry frame = MMU.getFrame(id);
+        if (frame.getPage() == null && !frame.isOccupied()) {
+          return frame;
+        }
+      }
+      return null;
+    }
+
+    /**
+    *   True if every frame is locked or reserved
+    */
+    synchronized public static boolean allFramesOccupied(){
+      collectUnreserved();
+      assert occupiedFrames == countOccupiedFrames() : 
+        "occupied frames " + occupiedFrames + ", recount " + countOccupiedFrames();
+      return occupiedFrames >= MMU.getFrameTableSize();
+    }
+
+    /**
+    *   Lock, unlock, reserve and unreserve frames through these methods
+    *   so the count of occupied frames stays right
+    */
+    synchronized public static void lockFrame(FrameTableEntry frame){
+      collectUnreserved();
+      boolean occupied = frame.isOccupied();
+      boolean free = isFree(frame);
+      frame.incrementLockCount();
+      occupancyChanged(frame, occupied, free);
+    }
+
+    synchronized public static void unlockFrame(FrameTableEntry frame){
+      collectUnreserved();
+      boolean occupied = frame.isOccupied();
+      boolean free = isFree(frame);
+      frame.decrementLockCount();
+      occupancyChanged(frame, occupied, free);
+    }
+
+    synchronized public static void reserveFrame(FrameTableEntry frame, TaskCB task){
+      collectUnreserved();
+      boolean occupied = frame.isOccupied();
+      boolean free = isFree(frame);
+      frame.setReserved(task);
+      reservedFrames.add(frame);
+      occupancyChanged(frame, occupied, free);
+    }
+
+    /**
+    *   A frame left without a page, e.g. by a failed page fault, goes
+    *   back to the free frames
+    */
+    synchronized public static void unreserveFrame(FrameTableEntry frame, TaskCB task){
+      collectUnreserved();
+      boolean occupied = frame.isOccupied();
+      boolean free = isFree(frame);
+      frame.setUnreserved(task);
+      reservedFrames.remove(frame);
+      occupancyChanged(frame, occupied, free);
+      if (frame.getPage() == null) {
+        pushFreeFrame(frame);
+      }
+    }
+
+    /**
+    *   Count in the frames unreserved behind MMU's back, as
+    *   unreserveFrame() would have. Only frames of page faults in
+    *   progress are reserved, so this looks at a handful of frames.
+    */
+    private static void collectUnreserved(){
+      Iterator<FrameTableEntry> frames = reservedFrames.iterator();
+      while (frames.hasNext()) {
+        FrameTableEntry frame = frames.next();
+        if (!frame.isReserved()) {
+          frames.remove();
+          //It was reserved, so occupied and not free
+          count(frame, true, false);
+          if (frame.getPage() == null) {
+            pushFreeFrame(frame);
+          }
+        }
+      }
+    }
+
+    /**
+    *   Update the counters after the frame was locked, unlocked,
+    *   reserved or unreserved. A frame gets its page only while it is
+    *   reserved, so the page fault handler needs no call here.
+    */
+    private static void occupancyChanged(FrameTableEntry frame, boolean occupied, boolean free){
+      count(frame, occupied, free);
+      assert occupiedFrames == countOccupiedFrames() : 
+        "occupied frames " + occupiedFrames + ", recount " + countOccupiedFrames();
+      assert freeFrameCount == countFreeFrames() : 
+        "free frames " + freeFrameCount + ", recount " + countFreeFrames();
+    }
+
+    private static void count(FrameTableEntry frame, boolean occupied, boolean free){
+      if (occupied && !frame.isOccupied()) {
+        occupiedFrames--;
+      } else if (!occupied && frame.isOccupied()) {
+        occupiedFrames++;
+      }
+      if (free && !isFree(frame)) {
+        freeFrameCount--;
+      } else if (!free && isFree(frame)) {
+        freeFrameCount++;
+      }
+    }
+
+    private static boolean isFree(FrameTableEntry frame){
+      return frame.getPage() == null && !frame.isOccupied();
+    }
+
+    /**
+    *   Frames without a page that are not locked or reserved
+    */
+    synchronized public static int getFreeFrameCount(){
+      collectUnreserved();
+      assert freeFrameCount == countFreeFrames() : 
+        "free frames " + freeFrameCount + ", recount " + countFreeFrames();
+      return freeFrameCount;
+    }
+
+    /**
+    *   Full recount of the occupied frames, for the assertions that
+    *   check the counter when the JVM runs with -ea
+    */
+    private static int countOccupiedFrames(){
+      int occupied = 0;
+      int frameTableSize = MMU.getFrameTableSize();
+      for (int i = 0; i < frameTableSize; i++) {
+        if (MMU.getFrame(i).isOccupied()) {
+          occupied++;
+        }
+      }
+      return occupied;
+    }
+
     /**
     *   This method is called periodically by memory management
     *   daomon thread. It cleans memory frames whose assigned 
@@ -265,6 +534,8 @@ public class MMU extends IflMMU
     public static void cleanFrames(ThreadCB thread){
       MyOut.print(thread, "Clean memory frames of " + thread);
       FrameTableEntry frame = null;
+      List<FrameTableEntry> zombies = new ArrayList<FrameTableEntry>();
+      List<PageTableEntry> dirtyPages = new ArrayList<PageTableEntry>();
       int frameTableSize = MMU.getFrameTableSize();
       for (int i = 0; i < frameTableSize; i++) {
         frame = MMU.getFrame(i);
@@ -275,19 +546,114 @@ public class MMU extends IflMMU
               //Frame must not be occupied, must have a page linked,
               //and the corresponding thread must already be killed,
               //then the frame is ready to be free
-
+              zombies.add(frame);
               //If the frame is dirty, it has to be written back
               if (frame.isDirty()) {
-                OpenFile swapFile = page.getTask().getSwapFile();
-                //Swap out the original page
-                swapFile.write(page.getID(), page, thread);
-                MyOut.print(thread, "\tswap out page " + page);
+                dirtyPages.add(page);
               }
-              MMU.free(frame);
             }
           }
         }
       }
+      //Swap out the dirty pages in one sweep of the swap disk
+      Writeback.writeBatch(dirtyPages, thread);
+      for (FrameTableEntry zombie : zombies) {
+        //The frame may have been taken while writing back
+        if (!zombie.isOccupied() && zombie.getPage() != null &&
+          zombie.getPage().getTask().getStatus() == TaskTerm) {
+          MMU.free(zombie);
+        }
+      }
+    }
+
+    /**
+    *   This method is called periodically by the page cleaner daemon.
+    *   When fewer than the low watermark of frames are free, it frees
+    *   cold frames in replacement order until the high watermark is
+    *   reached: clean ones at once, dirty ones after writing them back
+    *   in one batch. A page fault then mostly finds a free frame and
+    *   needs only the swap-in.
+    */
+    public static void balanceFrames(ThreadCB thread){
+      int free = getFreeFrameCount();
+      if (free >= cleanerLow) {
+        return;
+      }
+      int needed = cleanerHigh - free;
+      MyOut.print(thread, "Page cleaner: " + free + " free frames, freeing " + needed);
+      List<FrameTableEntry> dirtyFrames = new ArrayList<FrameTableEntry>();
+      List<PageTableEntry> dirtyPages = new ArrayList<PageTableEntry>();
+      Iterator<FrameTableEntry> order = replacement.evictionOrder();
+      while (needed > 0 && order.hasNext()) {
+        FrameTableEntry frame = order.next();
+        if (!canEvict(frame)) {
+          continue;
+        }
+        if (frame.isDirty()) {
+          dirtyFrames.add(frame);
+          dirtyPages.add(frame.getPage());
+        } else{
+          evict(frame);
+        }
+        needed--;
+      }
+      if (dirtyPages.isEmpty()) {
+        return;
+      }
+      //Swap out the dirty pages in one sweep of the swap disk
+      Writeback.writeBatch(dirtyPages, thread);
+      cleanerWrites += dirtyPages.size();
+      for (int i = 0; i < dirtyFrames.size(); i++) {
+        FrameTableEntry frame = dirtyFrames.get(i);
+        //The page may have been written to or replaced while writing
+        if (frame.getPage() == dirtyPages.get(i) && canEvict(frame) &&
+          !frame.isDirty()) {
+          evict(frame);
+        }
+      }
+    }
+
+    public static boolean isCleanerOn(){
+      return cleanerLow > 0;
+    }
+
+    public static int getCleanerWrites(){
+      return cleanerWrites;
+    }
+
+    public static int getCleanerEvictions(){
+      return cleanerEvictions;
+    }
+
+    /**
+    *   A frame the cleaner may take: it holds a page that is not being
+    *   validated and is neither locked nor reserved
+    */
+    private static boolean canEvict(FrameTableEntry frame){
+      PageTableEntry page = frame.getPage();
+      return page != null && !frame.isOccupied() &&
+        page.getValidatingThread() == null;
+    }
+
+    synchronized private static void evict(FrameTableEntry frame){
+      MyOut.print(frame, "Page cleaner evicts " + frame.getPage());
+      MMU.free(frame);
+      cleanerEvictions++;
+    }
+
+    /**
+    *   Full recount of the free frames, for the assertions
+    */
+    private static int countFreeFrames(){
+      int free = 0;
+      int frameTableSize = MMU.getFrameTableSize();
+      for (int i = 0; i < frameTableSize; i++) {
+        FrameTableEntry frame = MMU.getFrame(i);
+        if (frame.getPage() == null && !frame.isOccupied()) {
+          free++;
+        }
+      }
+      return free;
     }
 
     /** Called by OSP after printing an error message. The student can
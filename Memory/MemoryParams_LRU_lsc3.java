@@ -0,0 +1,75 @@
+package osp.Memory;
+
+import java.io.*;
+import java.util.*;
+import osp.Utilities.*;
+
+/**
+*   Student parameters of the Memory module, read from the [Memory]
+*   section of the params.osp file that OSP uses. OSP ignores keys it
+*   does not know, so they sit next to FramesOfPhysicalMemory. The file
+*   is the one named by the osp.paramFile system property (set by the
+*   FileSys Makefile to the file it gives OSP), Misc/params.osp without
+*   it. A missing file leaves every parameter at its default.
+*/
+class MemoryParams{
+    private static final String DefaultParamFile = "Misc/params.osp";
+
+    /**
+    *   key -> value of the [Memory] section
+    */
+    private static HashMap<String, String> values;
+
+    public static String getString(String key, String def){
+        load();
+        return values.containsKey(key) ? values.get(key) : def;
+    }
+
+    public static int getInt(String key, int def){
+        String value = getString(key, null);
+        if (value == null) {
+            return def;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e){
+            MyOut.warning("MemoryParams", "Parameter " + key + " is not a number: " + value);
+            return def;
+        }
+    }
+
+    synchronized private static void load(){
+        if (values != null) {
+            return;
+        }
+        values = new HashMap<String, String>();
+        String filename = System.getProperty("osp.paramFile", DefaultParamFile);
+        try {
+            BufferedReader reader = new BufferedReader(new FileReader(filename));
+            boolean inMemory = false;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.length() == 0 || line.startsWith("#")) {
+                    continue;
+                }
+                if (line.startsWith("[") && line.endsWith("]")) {
+                    inMemory = line.equals("[Memory]");
+                    continue;
+                }
+                String[] pair = line.split("\\s+", 2);
+                if (inMemory && pair.length == 2) {
+                    values.put(pair[0], pair[1]);
+                }
+            }
+            reader.close();
+        } catch (FileNotFoundException e){
+            //Only worth a message if the file was asked for
+            if (!filename.equals(DefaultParamFile)) {
+                System.err.println("IOException: " + e.getMessage());
+            }
+        } catch (IOException ioe){
+            System.err.println("IOException: " + ioe.getMessage());
+        }
+    }
+}
@@ -104,27 +104,23 @@ public class PageFaultHandler extends IflPageFaultHandler
         //
         //Search for empty frame first. For placement algorithm, not 
         //much difference when using paging
-        int frameTableSize = MMU.getFrameTableSize();
         FrameTableEntry selectedFrame = null;
-        for (int i = 0; i < frameTableSize; i ++) {
-            FrameTableEntry frame = MMU.getFrame(i);
-            //If the frame is free, reserve it with the page
-            if (frame.getPage() == null) {
-                //Reserve the frame
-                if (SUCCESS == do_reserveFrame(frame, thread)){
-                    selectedFrame = frame;
-                    MyOut.print(thread, "\t Found a free frame: " + selectedFrame);
-                    break;
-                }
+        FrameTableEntry frame = null;
+        while ((frame = MMU.popFreeFrame()) != null) {
+            //The frame is free, reserve it with the page
+            if (SUCCESS == do_reserveFrame(frame, thread)){
+                selectedFrame = frame;
+                MyOut.print(thread, "\t Found a free frame: " + selectedFrame);
+                break;
             }
         }
         //If there is no free frame, search a frame for replacement
         if (selectedFrame == null) {
             MyOut.print(thread, "\t Cannot find free frame.");
-            //Apply LRU algorithm 
+            //Apply the replacement algorithm (LRU by default)
             do{
                 //Find the least recently used frame that is not occupied.
-                selectedFrame = do_LRU();
+                selectedFrame = do_LRU(page);
 
                 //If the LRU algorithm cannot find a suitable frame, it
                 //means there is no available frame in memory
@@ -135,15 +131,18 @@ public class PageFaultHandler extends IflPageFaultHandler
 
                 //Reserve the frame
             } while (FAILURE == do_reserveFrame(selectedFrame, thread));
-            MyOut.print(thread, "\t Select frame " + selectedFrame + " by LRU");
+            MyOut.print(thread, "\t Select frame " + selectedFrame + " by " +
+                MMU.getReplacementPolicy().getName());
 
             //If LRU find a dirty frame, swap out the original page in 
             //that frame
             PageTableEntry originalPage = selectedFrame.getPage();
             if (selectedFrame.isDirty()) {
-                OpenFile swapFile = originalPage.getTask().getSwapFile();
-                //Swap out the original page on behalf of the new thread
-                swapFile.write(originalPage.getID(), originalPage, thread);
+                //Swap out the original page on behalf of the new thread,
+                //the writeback daemon takes the other dirty pages
+                List<PageTableEntry> batch = MMU.getWritebackBatch(selectedFrame);
+                Writeback.defer(batch.subList(1, batch.size()));
+                Writeback.writeBatch(batch.subList(0, 1), thread);
                 MyOut.print(thread, "\tswap out original page " + originalPage);
             }
 
@@ -220,14 +219,14 @@ public class PageFaultHandler extends IflPageFaultHandler
             frame.getPage().getValidatingThread() != null) {
             return FAILURE;
         }
-        frame.setReserved(thread.getTask());
+        MMU.reserveFrame(frame, thread.getTask());
         return SUCCESS;
     }
     synchronized private static void do_unreserveFrame(
         FrameTableEntry frame, ThreadCB thread){
         MyOut.print(thread, "\t Unreserve " + frame);
         if (frame.isReserved()) {
-            frame.setUnreserved(thread.getTask());
+            MMU.unreserveFrame(frame, thread.getTask());
         }
     }
 
@@ -236,23 +235,16 @@ public class PageFaultHandler extends IflPageFaultHandler
     *   @return false if there exists available frames, true otherwise.
     */
     private static boolean allFramesAreOccupied(){
-        int frameTableSize = MMU.getFrameTableSize();
-        FrameTableEntry frame = null;
-        for (int i = 0; i < frameTableSize; i ++) {
-            frame = MMU.getFrame(i);
-            if (!frameIsOccupied(frame)) {
-                return false;
-            }
-        }
-        return true;
+        return MMU.allFramesOccupied();
     }
 
     /**
-    *   This method choose a frame for replacement using LRU algorithm.
+    *   This method choose a frame for replacement using the replacement
+    *   policy of MMU, LRU by default.
     *   @return the selected frame. null if not enough memory
     */
-    private static FrameTableEntry do_LRU(){
-        return MMU.getLRUframe();
+    private static FrameTableEntry do_LRU(PageTableEntry page){
+        return MMU.getLRUframe(page);
     }
 
     /**
@@ -311,10 +303,20 @@ public class PageFaultHandler extends IflPageFaultHandler
         new Thread(new Runnable(){
             public void run(){
                 String statStr = "";
+                int references = MMU.getReferencedPageNum();
                 statStr += ("[clock:" + HClock.get() + "]: SPF/PF/REF = (" + 
                     MMU.getSuccussfulPFAmount() + "/" + 
                     MMU.getPFAmount() + "/" + 
-                    MMU.getReferencedPageNum() + ")\r\n");
+                    references + ") " + 
+                    MMU.getReplacementPolicy().getName() + " PF/REF = " + 
+                    String.format("%.4f", references == 0 ? 0.0 : 
+                        (double)MMU.getPFAmount() / references));
+                if (MMU.isCleanerOn()) {
+                    statStr += " cleaner writes/evictions = (" + 
+                        MMU.getCleanerWrites() + "/" + 
+                        MMU.getCleanerEvictions() + ")";
+                }
+                statStr += "\r\n";
                 //Write the statics to file
 
                 String filename= "Statistics.txt";
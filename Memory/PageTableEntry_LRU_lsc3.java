@@ -103,7 +103,7 @@ public class PageTableEntry extends IflPageTableEntry
     {
       //decrement lock Count
       FrameTableEntry frame = getFrame();
-      frame.decrementLockCount();
+      MMU.unlockFrame(frame);
       if (frame.getLockCount() < 0) {
         MyOut.error(frame, "<XXL>: frame lock count becomes negative");
       }
@@ -123,7 +123,7 @@ public class PageTableEntry extends IflPageTableEntry
         thread.getTask().getStatus() == TaskTerm) {
         return FAILURE;
       } else  {
-        getFrame().incrementLockCount();
+        MMU.lockFrame(getFrame());
         MyOut.print(this, "Lock successful " + this + 
           ". new lock count: " + getFrame().getLockCount());
         return SUCCESS;
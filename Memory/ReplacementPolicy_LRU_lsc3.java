@@ -0,0 +1,50 @@
+package osp.Memory;
+
+import java.util.*;
+
+/**
+*   A page replacement strategy for the frames of physical memory.
+*
+*   MMU keeps the frame bookkeeping and tells the policy about every
+*   reference, every page brought into a frame and every frame freed;
+*   the policy chooses the victim when the page fault handler finds no
+*   free frame. The policy is chosen by name from the [Memory] section
+*   of params.osp, see MMU.init().
+*/
+public interface ReplacementPolicy{
+    /**
+    *   A valid page in the frame was referenced. Called on every
+    *   memory reference, so it must be cheap.
+    */
+    public void referenced(FrameTableEntry frame);
+
+    /**
+    *   A page was brought into the frame
+    */
+    public void loaded(FrameTableEntry frame);
+
+    /**
+    *   The page of the frame was freed
+    */
+    public void freed(FrameTableEntry frame);
+
+    /**
+    *   Select the frame to replace, it must hold a page and not be
+    *   occupied. May be called more than once for the same fault if
+    *   the frame cannot be reserved.
+    *   @param page the page the frame is needed for
+    *   @return null when every frame is occupied
+    */
+    public FrameTableEntry victim(PageTableEntry page);
+
+    /**
+    *   The frames holding a page, in the order the policy would
+    *   replace them, for writing back dirty pages ahead of time.
+    */
+    public Iterator<FrameTableEntry> evictionOrder();
+
+    /**
+    *   Name of the policy as written in params.osp
+    */
+    public String getName();
+}
@@ -0,0 +1,97 @@
+package osp.Memory;
+
+import java.util.*;
+import osp.Utilities.*;
+
+/**
+*   2Q replacement.
+*
+*   A page brought in for the first time goes to A1in, a FIFO of at
+*   most inSize frames that references do not reorder. When a page
+*   leaves A1in it is remembered in A1out, a FIFO ghost list of at most
+*   outSize pages. A page that faults again while in A1out has proven
+*   to be reused and goes to Am, an LRU queue holding the rest of the
+*   frames. A scan only passes through A1in and A1out, so the pages in
+*   Am survive it.
+*
+*   A1in and Am are FrameLists, so moving a frame is constant time and
+*   the victim is the head of a list. Only A1out is hashed, by page.
+*
+*   Pages freed because their task terminated are not remembered.
+*/
+public class TwoQueuePolicy implements ReplacementPolicy{
+    private int inSize;
+    private int outSize;
+    private FrameList in;
+    private FrameList main;
+    private LinkedHashSet<PageTableEntry> out = new LinkedHashSet<PageTableEntry>();
+
+    /**
+    *   @param inPercent size of A1in in percent of the frames
+    *   @param outPercent size of A1out in percent of the frames
+    */
+    public TwoQueuePolicy(int frames, int inPercent, int outPercent){
+        inSize = Math.max(frames * inPercent / 100, 1);
+        outSize = Math.max(frames * outPercent / 100, 1);
+        in = new FrameList(frames);
+        main = new FrameList(frames);
+    }
+
+    /**
+    *   Only a page in Am moves to its most recently used end
+    */
+    public void referenced(FrameTableEntry frame){
+        if (main.remove(frame)) {
+            main.add(frame);
+        }
+    }
+
+    public void loaded(FrameTableEntry frame){
+        in.remove(frame);
+        main.remove(frame);
+        PageTableEntry page = frame.getPage();
+        if (page != null && out.remove(page)) {
+            main.add(frame);
+        } else{
+            in.add(frame);
+        }
+    }
+
+    public void freed(FrameTableEntry frame){
+        PageTableEntry page = frame.getPage();
+        if (in.remove(frame)) {
+            if (page != null && page.getTask() != null &&
+                page.getTask().getStatus() != GlobalVariables.TaskTerm) {
+                out.add(page);
+                if (out.size() > outSize) {
+                    Iterator<PageTableEntry> oldest = out.iterator();
+                    oldest.next();
+                    oldest.remove();
+                }
+            }
+        } else{
+            main.remove(frame);
+        }
+    }
+
+    /**
+    *   The oldest frame of A1in while A1in is over its size, the least
+    *   recently used frame of Am otherwise
+    */
+    public FrameTableEntry victim(PageTableEntry page){
+        boolean fromIn = in.size() > inSize || main.isEmpty();
+        FrameTableEntry frame = fromIn ? in.firstFree() : main.firstFree();
+        if (frame == null) {
+            frame = fromIn ? main.firstFree() : in.firstFree();
+        }
+        return frame;
+    }
+
+    public Iterator<FrameTableEntry> evictionOrder(){
+        return FrameList.concat(in, main);
+    }
+
+    public String getName(){
+        return "2Q";
+    }
+}
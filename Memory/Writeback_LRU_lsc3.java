@@ -0,0 +1,117 @@
+package osp.Memory;
+
+import java.util.*;
+import osp.Threads.*;
+import osp.Tasks.*;
+import osp.Utilities.*;
+import osp.Hardware.*;
+import osp.FileSys.OpenFile;
+
+/**
+*   This class writes dirty pages back to their swap files as one
+*   batch, a swap file at a time and in page order within it, so the
+*   swap disk does not seek back and forth between the tasks' swap
+*   files. Pages a page fault would like to write along with its victim
+*   are deferred to the writeback daemon, so only the victim's swap-out
+*   holds up the fault.
+*/
+class Writeback{
+    /**
+    *   Frames with a swap-out in progress, and whether each was written
+    *   to in the meantime. Completion of the swap-out marks the frame
+    *   clean, so such a frame is marked dirty again afterwards. The page
+    *   fault, the writeback daemon and the page cleaner may each be in
+    *   the middle of a batch, so this is kept per frame; a frame already
+    *   being written by one of them is skipped by the others.
+    */
+    private static HashMap<FrameTableEntry, Boolean> writing = 
+        new HashMap<FrameTableEntry, Boolean>();
+    /**
+    *   Pages waiting for the writeback daemon, each at most once
+    */
+    private static LinkedHashSet<PageTableEntry> deferred = 
+        new LinkedHashSet<PageTableEntry>();
+
+    public static void init(){
+        writing.clear();
+        deferred.clear();
+    }
+
+    /**
+    *   Write the pages back, grouped by swap file. Pages whose frame is
+    *   no longer dirty, or is being written back already, are skipped.
+    *   Returns early if the thread is killed.
+    */
+    public static void writeBatch(List<PageTableEntry> pages, ThreadCB thread){
+        if (pages.isEmpty()) {
+            return;
+        }
+        ArrayList<PageTableEntry> sorted = new ArrayList<PageTableEntry>(pages);
+        //Page IDs are per task and each task has its own swap file, so
+        //group the pages by swap file first, then by page, which is the
+        //block within the file
+        Collections.sort(sorted, new Comparator<PageTableEntry>(){
+            public int compare(PageTableEntry a, PageTableEntry b){
+                int files = a.getTask().getSwapFile().getID() - 
+                    b.getTask().getSwapFile().getID();
+                return files != 0 ? files : a.getID() - b.getID();
+            }
+        });
+        MyOut.print(thread, "Write back " + sorted.size() + " dirty pages");
+        for (PageTableEntry page : sorted) {
+            FrameTableEntry frame = page.getFrame();
+            if (frame == null || !frame.isDirty() || writing.containsKey(frame)) {
+                continue;
+            }
+            OpenFile swapFile = page.getTask().getSwapFile();
+            writing.put(frame, false);
+            swapFile.write(page.getID(), page, thread);
+            if (writing.remove(frame)) {
+                frame.setDirty(true);
+            }
+            MyOut.print(thread, "\tswap out page " + page);
+            if (thread.getStatus() == GlobalVariables.ThreadKill ||
+                thread.getTask().getStatus() == GlobalVariables.TaskTerm) {
+                return;
+            }
+        }
+    }
+
+    /**
+    *   Leave the pages to the writeback daemon
+    */
+    public static void defer(List<PageTableEntry> pages){
+        deferred.addAll(pages);
+    }
+
+    /**
+    *   Called by the writeback daemon: write the deferred pages that
+    *   are still in memory, dirty and not reserved by a page fault.
+    *   Pages of terminated tasks are left to cleanFrames().
+    */
+    public static void flush(ThreadCB thread){
+        if (deferred.isEmpty()) {
+            return;
+        }
+        List<PageTableEntry> pages = new ArrayList<PageTableEntry>();
+        for (PageTableEntry page : deferred) {
+            FrameTableEntry frame = page.getFrame();
+            if (frame != null && frame.getPage() == page && frame.isDirty() &&
+                !frame.isOccupied() && 
+                page.getTask().getStatus() != GlobalVariables.TaskTerm) {
+                pages.add(page);
+            }
+        }
+        deferred.clear();
+        writeBatch(pages, thread);
+    }
+
+    /**
+    *   Called by MMU when a frame is written to
+    */
+    public static void noteWrite(FrameTableEntry frame){
+        if (writing.containsKey(frame)) {
+            writing.put(frame, true);
+        }
+    }
+}